@@ -0,0 +1,57 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.domain.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.Role;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserDetailsAdaptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of adapting a user entity to Spring Security user details.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class UserDetailsAdaptorBenchmark {
+    private User user;
+
+    /**
+     * Creates a user with two roles.
+     */
+    @Setup
+    public void setup() {
+        user = User.builder()
+                .username("benchmark")
+                .password("$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchma")
+                .isActive(true)
+                .build();
+        user.assignRole(Role.builder().name(ERole.USER).build());
+        user.assignRole(Role.builder().name(ERole.ADMIN).build());
+    }
+
+    /**
+     * Adapts the user to user details.
+     *
+     * @return the user details
+     */
+    @Benchmark
+    public UserDetailsAdaptor ofUser() {
+        return UserDetailsAdaptor.ofUser(user);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.exceptions;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the error path of a request: throwing a business exception from {@code depth} frames below
+ * the catch, roughly the depth of a controller call under the servlet filters and Spring MVC.
+ * {@code throwWithStackTrace} is the original behavior, an exception filling in its stack trace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class BusinessExceptionBenchmark {
+    @Param({"100"})
+    private int depth;
+
+    /**
+     * Throws and catches a stackless business exception.
+     *
+     * @return the message of the exception
+     */
+    @Benchmark
+    public String throwStackless() {
+        try {
+            return throwAt(depth, false);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Throws and catches an exception filling in its stack trace.
+     *
+     * @return the message of the exception
+     */
+    @Benchmark
+    public String throwWithStackTrace() {
+        try {
+            return throwAt(depth, true);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String throwAt(int remaining, boolean withStackTrace) {
+        if (remaining > 0) {
+            return throwAt(remaining - 1, withStackTrace);
+        }
+        if (withStackTrace) {
+            throw new StackTraceException("Refresh token is invalid");
+        }
+        throw new InvalidRefreshTokenException("Refresh token is invalid");
+    }
+
+    /**
+     * A business exception as it was before, capturing its stack trace.
+     */
+    private static final class StackTraceException extends RuntimeException {
+        private StackTraceException(String message) {
+            super(message);
+        }
+    }
+}
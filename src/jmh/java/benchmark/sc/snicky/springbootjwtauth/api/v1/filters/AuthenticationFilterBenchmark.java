@@ -0,0 +1,104 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.filters;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.filters.AuthenticationFilter;
+import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
+import sc.snicky.springbootjwtauth.api.v1.services.VerifiedAccessTokenCache;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of authenticating a request with a bearer access token,
+ * with and without the verified token cache. The filter chain only clears the security context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class AuthenticationFilterBenchmark {
+    private static final long ACCESS_TOKEN_DURATION_MS = 3_600_000L;
+    private static final long CACHE_MAX_SIZE = 10_000L;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private BenchmarkFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    /**
+     * Creates the filter and a request carrying a valid access token.
+     */
+    @Setup
+    public void setup() {
+        var accessTokenService = new AccessTokenServiceImpl();
+        accessTokenService.setAccessTokenDurationMs(ACCESS_TOKEN_DURATION_MS);
+        accessTokenService.setJwtSigningKey("benchmark_jwt_signing_key_which_should_be_replaced");
+        accessTokenService.initKeyMaterial();
+        var user = User.builder()
+                .username("benchmark")
+                .password("N/A")
+                .roles(ERole.USER.name())
+                .build();
+        var cache = new VerifiedAccessTokenCache(accessTokenService, cacheEnabled, CACHE_MAX_SIZE,
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        filter = new BenchmarkFilter(cache);
+        request = new MockHttpServletRequest("GET", "/api/v1/get-my-roles");
+        request.addHeader(AuthenticationFilter.HEADER_NAME,
+                AuthenticationFilter.BEARER_PREFIX + accessTokenService.generate(user));
+        response = new MockHttpServletResponse();
+        filterChain = (req, res) -> SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Authenticates the request.
+     *
+     * @throws ServletException never, as the filter chain only clears the security context
+     * @throws IOException      never, as the filter chain only clears the security context
+     */
+    @Benchmark
+    public void doFilterInternal() throws ServletException, IOException {
+        filter.filter(request, response, filterChain);
+    }
+
+    /**
+     * Exposes {@code doFilterInternal}, bypassing the once-per-request bookkeeping of the base class.
+     */
+    private static final class BenchmarkFilter extends AuthenticationFilter {
+        private BenchmarkFilter(VerifiedAccessTokenCache verifiedAccessTokenCache) {
+            super(verifiedAccessTokenCache);
+        }
+
+        private void filter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            doFilterInternal(request, response, filterChain);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of revoking every refresh token of one user on a large seeded tokens table, comparing the derived delete
+ * {@code deleteAllByUserId} used to be, which loaded the user's tokens and deleted them one by one by ID,
+ * with the single bulk delete through {@code tokens_user_id_idx}.
+ * <p>
+ * Needs a PostgreSQL database migrated by the application, given by the {@code BENCH_DB_URL},
+ * {@code BENCH_DB_USER} and {@code BENCH_DB_PASSWORD} environment variables. The trial seeds {@code users}
+ * users with {@code tokensPerUser} tokens each, expiring over the next week so they spread over the daily
+ * partitions, and deletes them at the end. Each invocation deletes the tokens of a random seeded user in a
+ * transaction that is rolled back afterward, so the dataset stays the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+// CHECKSTYLE:ON
+@Fork(1)
+public class DeleteAllByUserIdBenchmark {
+    private static final String SEED_USERS_SQL = """
+            INSERT INTO users (username, password, is_active)
+            SELECT 'bench-' || g, 'not a hash', TRUE FROM generate_series(1, ?) g
+            """;
+
+    private static final String SEED_TOKENS_SQL = """
+            INSERT INTO tokens (token, user_id, exp)
+            SELECT sha256(convert_to(u.id || ':' || g, 'UTF8')), u.id,
+                   LOCALTIMESTAMP + random() * INTERVAL '7 days'
+            FROM users u, generate_series(1, ?) g
+            WHERE u.username LIKE 'bench-%'
+            """;
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"50"})
+    private int tokensPerUser;
+
+    private Connection connection;
+    private int[] userIds;
+    private int userId;
+
+    /**
+     * Seeds the users and their tokens.
+     *
+     * @throws SQLException if the database is not reachable or not migrated
+     */
+    @Setup
+    public void seed() throws SQLException {
+        connection = DriverManager.getConnection(
+                requiredEnv("BENCH_DB_URL"), requiredEnv("BENCH_DB_USER"), System.getenv("BENCH_DB_PASSWORD"));
+        deleteSeededUsers();
+        try (var seedUsers = connection.prepareStatement(SEED_USERS_SQL);
+             var seedTokens = connection.prepareStatement(SEED_TOKENS_SQL)) {
+            seedUsers.setInt(1, users);
+            seedUsers.executeUpdate();
+            seedTokens.setInt(1, tokensPerUser);
+            seedTokens.executeUpdate();
+        }
+        try (var statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE tokens");
+            var ids = statement.executeQuery("SELECT id FROM users WHERE username LIKE 'bench-%'");
+            var seeded = new ArrayList<Integer>();
+            while (ids.next()) {
+                seeded.add(ids.getInt(1));
+            }
+            userIds = seeded.stream().mapToInt(Integer::intValue).toArray();
+        }
+        connection.setAutoCommit(false);
+    }
+
+    /**
+     * Deletes the seeded users, and their tokens with them, and closes the connection.
+     *
+     * @throws SQLException if the database is not reachable
+     */
+    @TearDown
+    public void cleanUp() throws SQLException {
+        connection.setAutoCommit(true);
+        deleteSeededUsers();
+        connection.close();
+    }
+
+    /**
+     * Picks the seeded user whose tokens the next invocation deletes.
+     */
+    @Setup(Level.Invocation)
+    public void pickUser() {
+        userId = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    /**
+     * Rolls back the deletion of the invocation.
+     *
+     * @throws SQLException if the database is not reachable
+     */
+    @TearDown(Level.Invocation)
+    public void rollback() throws SQLException {
+        connection.rollback();
+    }
+
+    /**
+     * What the derived {@code deleteAllByUserId} did: select the user's tokens, then delete each by its ID.
+     * The ID alone is not the partition key, so each of these deletes probes every partition.
+     *
+     * @return the number of deleted tokens
+     * @throws SQLException if the database is not reachable
+     */
+    @Benchmark
+    public int derivedDelete() throws SQLException {
+        var deleted = 0;
+        try (var select = connection.prepareStatement("SELECT id FROM tokens WHERE user_id = ?");
+             var delete = connection.prepareStatement("DELETE FROM tokens WHERE id = ?")) {
+            select.setInt(1, userId);
+            var ids = select.executeQuery();
+            while (ids.next()) {
+                delete.setInt(1, ids.getInt(1));
+                deleted += delete.executeUpdate();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * What {@code deleteAllByUserId} does now: one statement, reading the user's tokens through the user index.
+     *
+     * @return the number of deleted tokens
+     * @throws SQLException if the database is not reachable
+     */
+    @Benchmark
+    public int bulkDelete() throws SQLException {
+        try (var delete = connection.prepareStatement("DELETE FROM tokens WHERE user_id = ?")) {
+            delete.setInt(1, userId);
+            return delete.executeUpdate();
+        }
+    }
+
+    private void deleteSeededUsers() throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM users WHERE username LIKE 'bench-%'");
+        }
+    }
+
+    private static String requiredEnv(String name) {
+        var value = System.getenv(name);
+        if (value == null) {
+            throw new IllegalStateException(name + " must point to a migrated PostgreSQL database");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,74 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of issuing and authenticating access tokens with the default HMAC key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class AccessTokenServiceBenchmark {
+    private static final long ACCESS_TOKEN_DURATION_MS = 3_600_000L;
+
+    private AccessTokenServiceImpl accessTokenService;
+    private UserDetails user;
+    private String token;
+
+    /**
+     * Creates the service and a token to authenticate.
+     */
+    @Setup
+    public void setup() {
+        accessTokenService = new AccessTokenServiceImpl();
+        accessTokenService.setAccessTokenDurationMs(ACCESS_TOKEN_DURATION_MS);
+        accessTokenService.setJwtSigningKey("benchmark_jwt_signing_key_which_should_be_replaced");
+        accessTokenService.initKeyMaterial();
+        user = User.builder()
+                .username("benchmark")
+                .password("N/A")
+                .roles(ERole.USER.name(), ERole.ADMIN.name())
+                .build();
+        token = accessTokenService.generate(user);
+    }
+
+    /**
+     * Issues a new access token.
+     *
+     * @return the access token
+     */
+    @Benchmark
+    public String generate() {
+        return accessTokenService.generate(user);
+    }
+
+    /**
+     * Authenticates the access token.
+     *
+     * @return the user details of the token
+     */
+    @Benchmark
+    public UserDetails extractUserDetails() {
+        return accessTokenService.extractUserDetails(token);
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ESigningAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
+import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of signing and verifying access tokens with the shared HMAC secret
+ * against the asymmetric ES256 and Ed25519 keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class AccessTokenSigningBenchmark {
+    private static final long ACCESS_TOKEN_DURATION_MS = 3_600_000L;
+
+    @Param({"HMAC", "ES256", "ED25519"})
+    private ESigningAlgorithm algorithm;
+
+    private AccessTokenServiceImpl accessTokenService;
+    private UserDetails user;
+    private String token;
+
+    /**
+     * Creates the service signing with the benchmarked algorithm and a token to verify.
+     */
+    @Setup
+    public void setup() {
+        accessTokenService = new AccessTokenServiceImpl();
+        accessTokenService.setAccessTokenDurationMs(ACCESS_TOKEN_DURATION_MS);
+        accessTokenService.setJwtSigningKey("benchmark_jwt_signing_key_which_should_be_replaced");
+        accessTokenService.setSigningAlgorithm(algorithm);
+        accessTokenService.initKeyMaterial();
+        user = User.builder()
+                .username("benchmark")
+                .password("N/A")
+                .roles(ERole.USER.name(), ERole.ADMIN.name())
+                .build();
+        token = accessTokenService.generate(user);
+    }
+
+    /**
+     * Signs a new access token.
+     *
+     * @return the access token
+     */
+    @Benchmark
+    public String sign() {
+        return accessTokenService.generate(user);
+    }
+
+    /**
+     * Verifies the access token.
+     *
+     * @return the verified access token
+     */
+    @Benchmark
+    public VerifiedAccessToken verify() {
+        return accessTokenService.verify(token);
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.EPasswordHashingAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.PasswordEncoders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password hashes per second on one core for each candidate configuration, to pick a cost that fits the login SLO.
+ * A configuration is {@code ALGORITHM:cost}, the BCrypt strength or the PBKDF2 iterations; add candidates with
+ * {@code gradle jmh -PjmhArgs="PasswordEncoders -p configuration=BCRYPT:11,PBKDF2:600000"}.
+ * Each benchmark runs on a single thread, so its score is the per-core throughput of the hashing pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+// CHECKSTYLE:ON
+@Threads(1)
+@Fork(1)
+public class PasswordEncodersBenchmark {
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int MIN_BCRYPT_STRENGTH = 4;
+
+    @Param({"BCRYPT:10", "BCRYPT:12", "PBKDF2:310000", "PBKDF2:600000"})
+    private String configuration;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    /**
+     * Creates the encoder of the benchmarked configuration and a hash to verify.
+     */
+    @Setup
+    public void setup() {
+        var parts = configuration.split(":");
+        var algorithm = EPasswordHashingAlgorithm.valueOf(parts[0]);
+        var cost = Integer.parseInt(parts[1]);
+        encoder = algorithm == EPasswordHashingAlgorithm.BCRYPT
+                ? PasswordEncoders.create(algorithm, cost, 1)
+                : PasswordEncoders.create(algorithm, MIN_BCRYPT_STRENGTH, cost);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    /**
+     * Hashes the password.
+     *
+     * @return the hash
+     */
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    /**
+     * Verifies the password against its hash.
+     *
+     * @return whether the password matches
+     */
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.StripedRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a rate limit check on the login path, with four threads hitting a limiter of tracked keys.
+ * {@code knownKey} checks keys that already have a bucket; {@code exhaustedKey} checks a key with no permits left,
+ * the path of a rejected credential-stuffing attempt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+// CHECKSTYLE:ON
+@Fork(1)
+public class StripedRateLimiterBenchmark {
+    private static final int KEYS = 10_000;
+    private static final int MAX_KEYS = 100_000;
+    private static final int STRIPES = 64;
+
+    private StripedRateLimiter limiter;
+    private String[] keys;
+
+    /**
+     * Creates a limiter that never runs out of permits and gives every key a bucket.
+     */
+    @Setup
+    public void setup() {
+        limiter = new StripedRateLimiter(Integer.MAX_VALUE, Duration.ofNanos(1), MAX_KEYS, STRIPES, System::nanoTime);
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "user" + i;
+            limiter.tryAcquire(keys[i]);
+        }
+    }
+
+    /**
+     * Checks a random key that already has a bucket.
+     *
+     * @return the wait until the next permit
+     */
+    @Benchmark
+    public long knownKey() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    /**
+     * State of a limiter whose single key has no permits left.
+     */
+    @State(Scope.Benchmark)
+    public static class Exhausted {
+        private final StripedRateLimiter limiter =
+                new StripedRateLimiter(1, Duration.ofDays(1), MAX_KEYS, STRIPES, System::nanoTime);
+
+        /**
+         * Takes the only permit of the key.
+         */
+        @Setup
+        public void setup() {
+            limiter.tryAcquire("attacker");
+        }
+    }
+
+    /**
+     * Checks the key with no permits left.
+     *
+     * @param exhausted the limiter whose key is exhausted
+     * @return the wait until the next permit
+     */
+    @Benchmark
+    public long exhaustedKey(Exhausted exhausted) {
+        return exhausted.limiter.tryAcquire("attacker");
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of generating and hashing refresh tokens.
+ * {@code hashTokenBaseline} is the original implementation, with a digest lookup and a Base64 string per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// CHECKSTYLE:OFF
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// CHECKSTYLE:ON
+@Fork(1)
+public class TokenUtilsBenchmark {
+    private String token;
+
+    /**
+     * Generates the refresh token to hash.
+     */
+    @Setup
+    public void setup() {
+        token = TokenUtils.generateToken();
+    }
+
+    /**
+     * Generates a new refresh token.
+     *
+     * @return the refresh token
+     */
+    @Benchmark
+    public String generateToken() {
+        return TokenUtils.generateToken();
+    }
+
+    /**
+     * Hashes the refresh token.
+     *
+     * @return the hash of the token
+     */
+    @Benchmark
+    public String hashToken() {
+        return TokenUtils.hashToken(token);
+    }
+
+    /**
+     * Hashes the refresh token with the reused per-thread digest.
+     *
+     * @return the hash of the token
+     */
+    @Benchmark
+    public ProtectedToken hashTokenWithTokenHasher() {
+        return TokenHasher.hash(token);
+    }
+
+    /**
+     * Hashes the refresh token as the original implementation did.
+     *
+     * @return the hash of the token
+     * @throws NoSuchAlgorithmException never, as SHA-256 is always available
+     */
+    @Benchmark
+    public String hashTokenBaseline() throws NoSuchAlgorithmException {
+        var digest = MessageDigest.getInstance("SHA-256");
+        return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
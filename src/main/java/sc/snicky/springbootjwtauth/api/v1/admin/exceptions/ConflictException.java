@@ -1,6 +1,8 @@
 package sc.snicky.springbootjwtauth.api.v1.admin.exceptions;
 
-public abstract class ConflictException extends RuntimeException {
+import sc.snicky.springbootjwtauth.api.v1.exceptions.BusinessException;
+
+public abstract class ConflictException extends BusinessException {
     public ConflictException(String message) {
         super(message);
     }
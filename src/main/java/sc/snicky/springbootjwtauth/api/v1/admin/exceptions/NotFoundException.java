@@ -1,6 +1,8 @@
 package sc.snicky.springbootjwtauth.api.v1.admin.exceptions;
 
-public abstract class NotFoundException extends RuntimeException {
+import sc.snicky.springbootjwtauth.api.v1.exceptions.BusinessException;
+
+public abstract class NotFoundException extends BusinessException {
     public NotFoundException(String message) {
         super(message);
     }
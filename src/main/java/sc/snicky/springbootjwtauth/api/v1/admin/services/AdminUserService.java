@@ -19,6 +19,7 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.Role;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRoleRepository;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
+import sc.snicky.springbootjwtauth.api.v1.services.UnknownUsernameCache;
 
 import java.util.List;
 
@@ -31,6 +32,7 @@ public class AdminUserService extends AbstractCrudServiceImpl<User, Integer> {
     private final JpaUserRepository jpaUserRepository;
     private final PasswordEncoder passwordEncoder;
     private final JpaRoleRepository jpaRoleRepository;
+    private final UnknownUsernameCache unknownUsernameCache;
 
     @Override
     protected JpaRepository<User, Integer> getRepo() {
@@ -48,6 +50,7 @@ public class AdminUserService extends AbstractCrudServiceImpl<User, Integer> {
             var user = jpaUserRepository.getReferenceById(userId);
             user.setUsername(newUsername);
             jpaUserRepository.save(user);
+            unknownUsernameCache.invalidate(newUsername);
         } catch (EntityNotFoundException e) {
             throw new UserNotFoundException("User with ID " + userId + " not found.");
         }
@@ -99,6 +102,7 @@ public class AdminUserService extends AbstractCrudServiceImpl<User, Integer> {
                     .build();
             user.assignRole(role);
             jpaUserRepository.save(user);
+            unknownUsernameCache.invalidate(user.getUsername());
         } catch (DataIntegrityViolationException e) {
             throw new UserAlreadyExistException("User with username " + data.username() + " already exists.");
         }
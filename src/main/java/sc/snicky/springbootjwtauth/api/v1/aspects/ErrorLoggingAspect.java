@@ -5,12 +5,39 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.BusinessException;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs the exceptions reaching the error handlers.
+ * <p>
+ * Business exceptions are routine, such as a bad login, so they are logged at DEBUG with their type and message
+ * only, and nothing is formatted when DEBUG is off. Other exceptions are logged at ERROR with their stack trace,
+ * at most once per exception type every {@code interval}; the occurrences suppressed in between are counted
+ * in the next logged one, so a failing dependency does not flood the log.
+ */
 @Slf4j
 @Aspect
 @Component
 public class ErrorLoggingAspect {
+    private final long intervalNanos;
+    private final ConcurrentMap<Class<?>, ErrorLogWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the aspect.
+     *
+     * @param intervalMs the minimum time between two logged errors of the same type, in milliseconds
+     */
+    public ErrorLoggingAspect(@Value("${app.logging.error-interval:10000}") long intervalMs) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    }
+
     /**
      * Pointcut that matches all methods in the package
      * `sc.snicky.springbootjwtauth.api.v1.exceptions.handlers` and its subpackages.
@@ -26,12 +53,48 @@ public class ErrorLoggingAspect {
     @Before("errorHandlingLayer()")
     public void logBeforeErrorHandlingMethods(JoinPoint joinPoint) {
         Object[] args = joinPoint.getArgs();
-
-        if (args.length > 0 && args[0] instanceof Exception ex) {
-            log.error("Exception handled in: {}.{}",
+        if (args.length == 0 || !(args[0] instanceof Exception ex)) {
+            return;
+        }
+        if (ex instanceof BusinessException) {
+            if (log.isDebugEnabled()) {
+                log.debug("{} handled in {}: {}", ex.getClass().getSimpleName(),
+                        joinPoint.getSignature().getName(), ex.getMessage());
+            }
+            return;
+        }
+        var suppressed = windows.computeIfAbsent(ex.getClass(), type -> new ErrorLogWindow())
+                .tryOpen(System.nanoTime(), intervalNanos);
+        if (suppressed >= 0) {
+            log.error("Exception handled in: {}.{} ({} similar suppressed)",
                     joinPoint.getTarget().getClass().getName(),
                     joinPoint.getSignature().getName(),
+                    suppressed,
                     ex);
         }
     }
+
+    /**
+     * Logging window of one exception type.
+     */
+    private static final class ErrorLogWindow {
+        private final AtomicLong openedAt = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLong suppressed = new AtomicLong();
+
+        /**
+         * Opens a new window if the last one is older than the interval.
+         *
+         * @param now           the current {@link System#nanoTime()}
+         * @param intervalNanos the length of a window in nanoseconds
+         * @return the number of occurrences suppressed since the last window if a new one was opened, otherwise -1
+         */
+        private long tryOpen(long now, long intervalNanos) {
+            var last = openedAt.get();
+            if (last != Long.MIN_VALUE && now - last < intervalNanos || !openedAt.compareAndSet(last, now)) {
+                suppressed.incrementAndGet();
+                return -1;
+            }
+            return suppressed.getAndSet(0);
+        }
+    }
 }
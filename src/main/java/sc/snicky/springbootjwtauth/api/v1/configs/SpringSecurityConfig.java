@@ -1,7 +1,10 @@
 package sc.snicky.springbootjwtauth.api.v1.configs;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,15 +13,18 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.EPasswordHashingAlgorithm;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
 import sc.snicky.springbootjwtauth.api.v1.filters.AuthenticationFilter;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.BoundedPasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.PasswordEncoders;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
@@ -37,13 +43,31 @@ public class SpringSecurityConfig {
     private final AuthenticationFilter authenticationFilter;
 
     /**
-     * Creates a PasswordEncoder bean using BCrypt hashing algorithm.
+     * Creates a PasswordEncoder bean hashing new passwords with the configured algorithm and cost,
+     * and verifying hashes of every supported algorithm and cost.
+     * Hashing runs on a dedicated pool with a bounded queue, so it cannot occupy every request thread.
      *
-     * @return a BCryptPasswordEncoder instance
+     * @param algorithm             the algorithm of new hashes
+     * @param bcryptStrength        the BCrypt cost
+     * @param pbkdf2Iterations      the number of PBKDF2 iterations
+     * @param threads               the number of hashing threads; 0 uses one per processor
+     * @param queueCapacity         the maximum number of hashes waiting for a thread
+     * @param retryAfterMs          the time rejected clients are told to wait, in milliseconds
+     * @param meterRegistryProvider the registry the hashing metrics are published to, if any
+     * @return a delegating password encoder wrapped in a BoundedPasswordEncoder
      */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "close")
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.auth.password-hashing.algorithm:BCRYPT}") EPasswordHashingAlgorithm algorithm,
+            @Value("${app.auth.password-hashing.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${app.auth.password-hashing.pbkdf2-iterations:310000}") int pbkdf2Iterations,
+            @Value("${app.auth.password-hashing.threads:0}") int threads,
+            @Value("${app.auth.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.auth.password-hashing.retry-after:1000}") long retryAfterMs,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new BoundedPasswordEncoder(PasswordEncoders.create(algorithm, bcryptStrength, pbkdf2Iterations),
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), queueCapacity,
+                Duration.ofMillis(retryAfterMs), meterRegistryProvider.getIfAvailable(CompositeMeterRegistry::new));
     }
 
     /**
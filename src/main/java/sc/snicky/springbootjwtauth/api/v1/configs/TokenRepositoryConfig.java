@@ -1,40 +1,86 @@
 package sc.snicky.springbootjwtauth.api.v1.configs;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import sc.snicky.springbootjwtauth.api.v1.configs.properties.RefreshTokenCacheProperties;
 import sc.snicky.springbootjwtauth.api.v1.mappers.JpaRefreshTokenMapper;
 import sc.snicky.springbootjwtauth.api.v1.repositories.BasicRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.CachingRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.InMemoryRefreshTokenRepositoryImpl;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
 import sc.snicky.springbootjwtauth.api.v1.repositories.PostgresRefreshTokenRepositoryImpl;
+import sc.snicky.springbootjwtauth.api.v1.repositories.RedisRefreshTokenRepositoryImpl;
+
+import java.nio.file.Path;
 
 @Configuration
 public class TokenRepositoryConfig {
     /**
      * Creates a Postgres-based token repository bean.
      * Activated when the property `app.auth.tokens.refresh.db` is set to `postgres`.
+     * Unless `app.auth.tokens.refresh.cache.enabled` is false, lookups go through a local cache.
      *
-     * @param mapper                    the JPA token mapper dependency
-     * @param repo the JPA token repository dependency
-     * @return a PostgresTokenRepositoryImpl instance
+     * @param mapper                the JPA token mapper dependency
+     * @param repo                  the JPA token repository dependency
+     * @param userRepository        the JPA user repository resolving token owners on a cache hit
+     * @param cacheProperties       the settings of the lookup cache
+     * @param meterRegistryProvider the registry the cache statistics are published to, if any
+     * @return a PostgresTokenRepositoryImpl instance, possibly wrapped in a CachingRefreshTokenRepository
      */
     @Bean
     @ConditionalOnProperty(prefix = "app.auth.tokens.refresh", name = "db", havingValue = "postgres")
-    public BasicRefreshTokenRepository postgresTokenRepository(JpaRefreshTokenMapper mapper, JpaRefreshTokenRepository repo) {
-        return new PostgresRefreshTokenRepositoryImpl(repo, mapper);
+    public BasicRefreshTokenRepository postgresTokenRepository(
+            JpaRefreshTokenMapper mapper,
+            JpaRefreshTokenRepository repo,
+            JpaUserRepository userRepository,
+            RefreshTokenCacheProperties cacheProperties,
+            ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        var repository = new PostgresRefreshTokenRepositoryImpl(repo, mapper);
+        if (!cacheProperties.enabled()) {
+            return repository;
+        }
+        return new CachingRefreshTokenRepository(repository, userRepository, cacheProperties.maxSize(),
+                cacheProperties.ttl(), cacheProperties.negativeTtl(), meterRegistryProvider.getIfAvailable());
     }
 
     /**
      * Creates a Redis-based token repository bean.
      * Activated when the property `app.auth.tokens.refresh.db` is set to `redis`.
-     * Currently not implemented.
      *
-     * @return nothing, always throws UnsupportedOperationException
-     * @throws UnsupportedOperationException if called
+     * @param redisTemplate  the Redis template connected to `spring.data.redis`
+     * @param userRepository the JPA user repository resolving token owners
+     * @return a RedisRefreshTokenRepositoryImpl instance
      */
     @Bean
     @ConditionalOnProperty(prefix = "app.auth.tokens.refresh", name = "db", havingValue = "redis")
-    public BasicRefreshTokenRepository redisTokenRepository() {
-        throw new UnsupportedOperationException("Redis token repository is not implemented yet."); // todo: change
+    public BasicRefreshTokenRepository redisTokenRepository(StringRedisTemplate redisTemplate, JpaUserRepository userRepository) {
+        return new RedisRefreshTokenRepositoryImpl(redisTemplate, userRepository);
+    }
+
+    /**
+     * Creates an in-memory token repository bean for single-node deployments and load tests.
+     * Activated when the property `app.auth.tokens.refresh.db` is set to `memory`.
+     *
+     * @param userRepository     the JPA user repository resolving token owners
+     * @param sweepTickMs        the resolution of the expiry sweeper in milliseconds
+     * @param snapshotPath       the snapshot file; blank keeps tokens in memory only
+     * @param snapshotIntervalMs how often the snapshot is written in milliseconds
+     * @return an InMemoryRefreshTokenRepositoryImpl instance
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.auth.tokens.refresh", name = "db", havingValue = "memory")
+    public BasicRefreshTokenRepository memoryTokenRepository(
+            JpaUserRepository userRepository,
+            @Value("${app.auth.tokens.refresh.memory.sweep-tick:1000}") long sweepTickMs,
+            @Value("${app.auth.tokens.refresh.memory.snapshot-path:}") String snapshotPath,
+            @Value("${app.auth.tokens.refresh.memory.snapshot-interval:60000}") long snapshotIntervalMs) {
+        return new InMemoryRefreshTokenRepositoryImpl(userRepository, sweepTickMs,
+                snapshotPath.isBlank() ? null : Path.of(snapshotPath), snapshotIntervalMs);
     }
 }
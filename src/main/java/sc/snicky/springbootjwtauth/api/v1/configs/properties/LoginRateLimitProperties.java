@@ -0,0 +1,32 @@
+package sc.snicky.springbootjwtauth.api.v1.configs.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the login rate limit, bound from {@code app.auth.login-rate-limit}.
+ * Durations given as plain numbers are in milliseconds.
+ *
+ * @param enabled              whether login attempts are rate limited
+ * @param usernameCapacity     the login attempts per username in a burst
+ * @param usernameRefillPeriod the time the username limit takes to refill completely
+ * @param ipCapacity           the login attempts per client IP in a burst
+ * @param ipRefillPeriod       the time the IP limit takes to refill completely
+ * @param maxKeys              the maximum number of usernames, and of IPs, tracked
+ * @param stripes              the number of lock stripes of each limiter
+ * @param trustedProxies       the addresses or CIDR ranges of the proxies whose {@code X-Forwarded-For} is trusted
+ */
+@ConfigurationProperties("app.auth.login-rate-limit")
+public record LoginRateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5") int usernameCapacity,
+        @DefaultValue("60000") Duration usernameRefillPeriod,
+        @DefaultValue("20") int ipCapacity,
+        @DefaultValue("60000") Duration ipRefillPeriod,
+        @DefaultValue("100000") int maxKeys,
+        @DefaultValue("64") int stripes,
+        @DefaultValue({"10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16", "127.0.0.0/8", "::1"}) List<String> trustedProxies) {
+}
@@ -0,0 +1,24 @@
+package sc.snicky.springbootjwtauth.api.v1.configs.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the local refresh token lookup cache in front of PostgreSQL, bound from
+ * {@code app.auth.tokens.refresh.cache}. Durations given as plain numbers are in milliseconds.
+ *
+ * @param enabled     whether lookups are cached
+ * @param maxSize     the maximum number of entries of each cache tier
+ * @param ttl         the maximum time a found token is cached, and so how long another node may still accept it
+ *                    after it was revoked or rotated
+ * @param negativeTtl the time an unknown token is cached
+ */
+@ConfigurationProperties("app.auth.tokens.refresh.cache")
+public record RefreshTokenCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("30000") Duration ttl,
+        @DefaultValue("30000") Duration negativeTtl) {
+}
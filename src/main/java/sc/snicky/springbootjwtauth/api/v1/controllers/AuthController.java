@@ -18,6 +18,7 @@ import sc.snicky.springbootjwtauth.api.v1.dtos.TokenPair;
 import sc.snicky.springbootjwtauth.api.v1.dtos.requests.AuthRequest;
 import sc.snicky.springbootjwtauth.api.v1.dtos.responses.AuthResponse;
 import sc.snicky.springbootjwtauth.api.v1.services.AuthService;
+import sc.snicky.springbootjwtauth.api.v1.services.LoginThrottle;
 import sc.snicky.springbootjwtauth.api.v1.services.SessionService;
 
 import java.time.Instant;
@@ -32,6 +33,7 @@ import java.time.Instant;
 public class AuthController {
     private final AuthService authService;
     private final SessionService sessionService;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Registers a new user and returns authentication tokens.
@@ -54,17 +56,21 @@ public class AuthController {
     /**
      * Authenticates a user and returns authentication tokens.
      *
+     * @param request     the HTTP request, identifying the client for the login rate limit
      * @param response    the HTTP response
      * @param authRequest the authentication request containing user credentials
      * @return a response entity containing the authentication response
      */
     @Operation(summary = "Authenticate user", description = "Authenticates a user and returns authentication tokens.", responses = {
             @ApiResponse(responseCode = "200", description = "User authenticated successfully"),
-            @ApiResponse(responseCode = "400", description = "Invalid credentials provided")})
+            @ApiResponse(responseCode = "400", description = "Invalid credentials provided"),
+            @ApiResponse(responseCode = "429", description = "Too many login attempts, retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "503", description = "Too many authentication requests, retry after the Retry-After delay")})
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(
-            HttpServletResponse response, @Valid @RequestBody AuthRequest authRequest) {
+            HttpServletRequest request, HttpServletResponse response, @Valid @RequestBody AuthRequest authRequest) {
 
+        loginThrottle.checkLoginAttempt(authRequest.username(), request);
         var tokens = authService.login(authRequest.username(), authRequest.password());
         sessionService.setSessionToken(response, tokens.refreshToken());
 
@@ -0,0 +1,67 @@
+package sc.snicky.springbootjwtauth.api.v1.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenService;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Controller publishing the public keys that verify access tokens, so other services can verify them locally.
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+@Tag(name = "authentication", description = "Endpoints for user authentication and session management")
+public class JwksController {
+    /**
+     * Media type of a JSON Web Key Set, as registered by RFC 7517.
+     */
+    public static final MediaType JWK_SET_JSON = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final AccessTokenService accessTokenService;
+    private final CacheControl cacheControl;
+
+    /**
+     * Creates the controller.
+     *
+     * @param keyService    the service holding the signing keys
+     * @param maxAgeSeconds how long clients and proxies may cache the key set without revalidating it
+     */
+    public JwksController(AccessTokenService keyService,
+                          @Value("${app.auth.tokens.signing.jwks-max-age:3600}") long maxAgeSeconds) {
+        this.accessTokenService = keyService;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    /**
+     * Returns the JSON Web Key Set of the access token signing keys.
+     * The response is cacheable and carries an ETag, so a revalidation with {@code If-None-Match}
+     * is answered with {@code 304 Not Modified} until the keys change.
+     *
+     * @return a response entity containing the JWK Set
+     */
+    @Operation(summary = "Get signing keys", description = "Returns the public keys verifying access tokens as a JWK Set.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Key set returned"),
+                    @ApiResponse(responseCode = "304", description = "Cached key set is still current")})
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<String> jwks() {
+        var jwkSet = accessTokenService.publicJwkSet();
+        var etag = "\"" + DigestUtils.md5DigestAsHex(jwkSet.getBytes(StandardCharsets.UTF_8)) + "\"";
+        return ResponseEntity.ok()
+                .contentType(JWK_SET_JSON)
+                .cacheControl(cacheControl)
+                .eTag(etag)
+                .body(jwkSet);
+    }
+}
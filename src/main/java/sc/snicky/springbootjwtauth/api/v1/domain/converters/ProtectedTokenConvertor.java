@@ -5,26 +5,26 @@ import jakarta.persistence.Converter;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 
 @Converter(autoApply = true)
-public class ProtectedTokenConvertor implements AttributeConverter<ProtectedToken, String> {
+public class ProtectedTokenConvertor implements AttributeConverter<ProtectedToken, byte[]> {
     /**
      * Converts a ProtectedToken entity attribute to its database column representation.
      *
      * @param attribute the ProtectedToken entity attribute, may be null
-     * @return the token string for database storage, or null if the attribute is null
+     * @return the raw 32-byte digest for database storage, or null if the attribute is null
      */
     @Override
-    public String convertToDatabaseColumn(ProtectedToken attribute) {
-        return attribute != null ? attribute.getToken() : null;
+    public byte[] convertToDatabaseColumn(ProtectedToken attribute) {
+        return attribute != null ? attribute.toBytes() : null;
     }
 
     /**
      * Converts a database column value to a ProtectedToken entity attribute.
      *
-     * @param dbData the database column value, may be null
+     * @param dbData the raw digest stored in the database, may be null
      * @return a ProtectedToken object, or null if the database value is null
      */
     @Override
-    public ProtectedToken convertToEntityAttribute(String dbData) {
-        return dbData != null ? new ProtectedToken(dbData) : null;
+    public ProtectedToken convertToEntityAttribute(byte[] dbData) {
+        return dbData != null ? ProtectedToken.ofDigest(dbData, 0) : null;
     }
 }
@@ -0,0 +1,13 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.enums;
+
+public enum EPasswordHashingAlgorithm {
+    /**
+     * BCrypt with a configurable cost ({@code bcrypt-strength}), the log2 of the number of rounds.
+     */
+    BCRYPT,
+
+    /**
+     * PBKDF2 with HMAC-SHA256 and a configurable number of iterations ({@code pbkdf2-iterations}).
+     */
+    PBKDF2
+}
@@ -0,0 +1,13 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.enums;
+
+public enum ERolesClaimFormat {
+    /**
+     * Roles are written as a JSON list of authorities, e.g. {@code "roles": ["ROLE_USER"]}.
+     */
+    LIST,
+
+    /**
+     * Roles are written as an integer bitmask of {@link ERole} ordinals, e.g. {@code "rm": 2}.
+     */
+    MASK
+}
@@ -0,0 +1,19 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.enums;
+
+public enum ESigningAlgorithm {
+    /**
+     * Shared-secret HMAC-SHA; HS256, HS384 or HS512 is chosen by the length of the secret.
+     * Only holders of the secret can verify tokens, so no public keys are published.
+     */
+    HMAC,
+
+    /**
+     * ECDSA over the P-256 curve with SHA-256 ({@code ES256}).
+     */
+    ES256,
+
+    /**
+     * EdDSA over the Ed25519 curve ({@code EdDSA}).
+     */
+    ED25519
+}
@@ -0,0 +1,12 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.events;
+
+import java.util.Set;
+
+/**
+ * Published when access token signing keys are removed from the keyring,
+ * so that tokens verified with those keys are no longer trusted from any cache.
+ *
+ * @param keyIds the IDs of the removed keys
+ */
+public record SigningKeysRemovedEvent(Set<String> keyIds) {
+}
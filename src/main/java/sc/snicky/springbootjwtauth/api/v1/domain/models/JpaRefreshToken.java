@@ -24,6 +24,7 @@ import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -44,10 +45,10 @@ public class JpaRefreshToken extends BaseEntity<Integer> implements Serializable
     private Integer id;
 
     /**
-     * The token string.
-     * Cannot be null and must be unique.
+     * The SHA-256 hash of the token, stored as 32 raw bytes.
+     * Cannot be null. Unique across partitions through the primary key of {@code token_lookup}.
      */
-    @Column(name = "token", nullable = false, unique = true)
+    @Column(name = "token", nullable = false, length = ProtectedToken.SIZE)
     @Convert(converter = ProtectedTokenConvertor.class)
     private ProtectedToken token;
 
@@ -76,4 +77,17 @@ public class JpaRefreshToken extends BaseEntity<Integer> implements Serializable
      */
     @Column(name = "exp", nullable = false)
     private Instant exp;
+
+    /**
+     * The family of the token: every token issued by rotating the token of one login.
+     * Assigned by the database to the first generation and copied to the next ones.
+     */
+    @Column(name = "family_id", nullable = false, insertable = false, updatable = false)
+    private UUID familyId;
+
+    /**
+     * The number of rotations between the first token of the family and this one.
+     */
+    @Column(name = "generation", nullable = false, insertable = false, updatable = false)
+    private Integer generation;
 }
@@ -1,47 +1,84 @@
 package sc.snicky.springbootjwtauth.api.v1.domain.models;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
 
 import java.util.Collection;
 import java.util.List;
 
 @Data
-@Builder
-@AllArgsConstructor
 public class UserDetailsAdaptor implements UserDetails {
     private Collection<? extends GrantedAuthority> grantedAuthorities;
     private String username;
     private String password;
 
+    /**
+     * Creates a UserDetailsAdaptor.
+     * The authorities are kept as an immutable list, so they can be handed out without copying.
+     *
+     * @param authorities  the authorities granted to the user, may be null
+     * @param userUsername the user's username
+     * @param userPassword the user's password
+     */
+    public UserDetailsAdaptor(Collection<? extends GrantedAuthority> authorities, String userUsername, String userPassword) {
+        setGrantedAuthorities(authorities);
+        this.username = userUsername;
+        this.password = userPassword;
+    }
+
+    /**
+     * Creates a UserDetailsAdaptor, backing the generated builder.
+     *
+     * @param grantedAuthorities the authorities granted to the user, may be null
+     * @param username           the user's username
+     * @param password           the user's password
+     * @return a UserDetailsAdaptor instance
+     */
+    @Builder
+    private static UserDetailsAdaptor of(Collection<? extends GrantedAuthority> grantedAuthorities, String username,
+                                         String password) {
+        return new UserDetailsAdaptor(grantedAuthorities, username, password);
+    }
+
     /**
      * Creates a UserDetailsAdaptor from a given User entity.
-     * Maps user roles to GrantedAuthority and sets username and password.
+     * Maps user roles to the shared {@link RoleAuthorities} and sets username and password.
      *
      * @param user the User entity to adapt
      * @return a UserDetailsAdaptor instance
      */
     public static UserDetailsAdaptor ofUser(User user) {
+        int roleMask = 0;
+        for (var role : user.getRoles()) {
+            roleMask |= RoleAuthorities.mask(role.getName());
+        }
         return UserDetailsAdaptor.builder()
-                .grantedAuthorities(user.getRoles().stream()
-                        .map(Role::getName)
-                        .map(erole -> (GrantedAuthority) erole::name)
-                        .toList())
+                .grantedAuthorities(RoleAuthorities.forMask(roleMask))
                 .password(user.getPassword())
                 .username(user.getUsername())
                 .build();
     }
 
+    /**
+     * Replaces the authorities granted to the user.
+     * Immutable lists, such as the ones from {@link RoleAuthorities}, are stored as is.
+     *
+     * @param authorities the authorities granted to the user, may be null
+     */
+    public void setGrantedAuthorities(Collection<? extends GrantedAuthority> authorities) {
+        this.grantedAuthorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
     /**
      * Returns the authorities granted to the user.
-     * @return a collection of granted authorities
+     * @return an immutable collection of granted authorities
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.copyOf(grantedAuthorities);
+        return grantedAuthorities;
     }
 
     /**
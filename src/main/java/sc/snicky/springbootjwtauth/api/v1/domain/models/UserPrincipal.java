@@ -0,0 +1,61 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.models;
+
+import lombok.Builder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
+
+import java.util.List;
+
+/**
+ * Lightweight projection of a user holding only what issuing tokens needs.
+ * Unlike {@link User}, it carries no password hash and no lazily loaded roles,
+ * so it can be built from a single query or from an entity that is already loaded.
+ *
+ * @param id       the ID of the user
+ * @param username the username of the user
+ * @param roleMask the roles of the user, as a {@link RoleAuthorities} bitmask
+ */
+@Builder
+public record UserPrincipal(
+        Integer id,
+        String username,
+        int roleMask
+) {
+    /**
+     * Creates a principal from a user entity. Reads the roles of the user, so they should already be loaded.
+     *
+     * @param user the user entity
+     * @return the principal of the user
+     */
+    public static UserPrincipal ofUser(User user) {
+        int roleMask = 0;
+        for (var role : user.getRoles()) {
+            roleMask |= RoleAuthorities.mask(role.getName());
+        }
+        return new UserPrincipal(user.getId(), user.getUsername(), roleMask);
+    }
+
+    /**
+     * Returns the Spring Security authorities matching the roles of the user.
+     *
+     * @return the shared immutable list of granted authorities
+     */
+    public List<GrantedAuthority> authorities() {
+        return RoleAuthorities.forMask(roleMask);
+    }
+
+    /**
+     * Adapts the principal to {@link UserDetails}.
+     * The password is not part of the principal.
+     *
+     * @return the user details of the principal
+     */
+    public UserDetails toUserDetails() {
+        return UserDetailsAdaptor.builder()
+                .username(username)
+                .password("N/A")
+                .grantedAuthorities(authorities())
+                .build();
+    }
+}
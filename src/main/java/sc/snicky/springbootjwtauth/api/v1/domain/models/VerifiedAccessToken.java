@@ -0,0 +1,61 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.models;
+
+import lombok.Builder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable result of a single parse of a signed access token.
+ * The signature and expiration have already been checked when an instance is created,
+ * so callers can read every claim they need without parsing the token again.
+ *
+ * @param subject   the username the token was issued for
+ * @param roleMask  the roles granted by the token, as a {@link RoleAuthorities} bitmask
+ * @param issuedAt  the instant the token was issued
+ * @param expiresAt the instant the token expires
+ */
+@Builder
+public record VerifiedAccessToken(
+        String subject,
+        int roleMask,
+        Instant issuedAt,
+        Instant expiresAt
+) {
+    /**
+     * Returns the roles granted by the token.
+     *
+     * @return the shared immutable set of roles
+     */
+    public Set<ERole> roles() {
+        return RoleAuthorities.rolesForMask(roleMask);
+    }
+
+    /**
+     * Returns the Spring Security authorities matching the roles of the token.
+     *
+     * @return the shared immutable list of granted authorities
+     */
+    public List<GrantedAuthority> authorities() {
+        return RoleAuthorities.forMask(roleMask);
+    }
+
+    /**
+     * Adapts the verified token to {@link UserDetails}.
+     * The password is not stored in the token.
+     *
+     * @return the user details of the token owner
+     */
+    public UserDetails toUserDetails() {
+        return UserDetailsAdaptor.builder()
+                .username(subject)
+                .password("N/A")
+                .grantedAuthorities(authorities())
+                .build();
+    }
+}
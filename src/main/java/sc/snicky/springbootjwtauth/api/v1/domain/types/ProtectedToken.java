@@ -1,13 +1,121 @@
 package sc.snicky.springbootjwtauth.api.v1.domain.types;
 
-import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * SHA-256 hash of a refresh token, the only form in which refresh tokens are stored.
+ * <p>
+ * The 32-byte digest is held as four {@code long}s, so the key has a fixed size, no backing arrays or strings,
+ * and compares and hashes in a few instructions when used as a map key or a query parameter.
+ */
+@EqualsAndHashCode
+public final class ProtectedToken implements Serializable {
+    /**
+     * Size of the digest in bytes.
+     */
+    public static final int SIZE = 32;
 
-@Data
-public class ProtectedToken implements Serializable {
     @Serial
-    private static final long serialVersionUID = 1L;
-    private final String token;
+    private static final long serialVersionUID = 2L;
+
+    private static final int H2_OFFSET = 2 * Long.BYTES;
+    private static final int H3_OFFSET = 3 * Long.BYTES;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final long h0;
+    private final long h1;
+    private final long h2;
+    private final long h3;
+
+    /**
+     * Creates a token hash from its Base64 representation.
+     *
+     * @param token the Base64-encoded SHA-256 digest
+     * @throws IllegalArgumentException if the value is not a Base64-encoded 32-byte digest
+     */
+    public ProtectedToken(String token) {
+        this(decode(token), 0);
+    }
+
+    /**
+     * Creates a token hash from the four big-endian words of the digest.
+     *
+     * @param d0 bytes 0-7 of the digest
+     * @param d1 bytes 8-15 of the digest
+     * @param d2 bytes 16-23 of the digest
+     * @param d3 bytes 24-31 of the digest
+     */
+    public ProtectedToken(long d0, long d1, long d2, long d3) {
+        this.h0 = d0;
+        this.h1 = d1;
+        this.h2 = d2;
+        this.h3 = d3;
+    }
+
+    private ProtectedToken(byte[] digest, int offset) {
+        this(readLong(digest, offset), readLong(digest, offset + Long.BYTES),
+                readLong(digest, offset + H2_OFFSET), readLong(digest, offset + H3_OFFSET));
+    }
+
+    /**
+     * Creates a token hash from raw digest bytes.
+     *
+     * @param digest the array holding the digest
+     * @param offset the offset of the digest in the array
+     * @return the token hash
+     * @throws IllegalArgumentException if the array holds less than {@link #SIZE} bytes after the offset
+     */
+    public static ProtectedToken ofDigest(byte[] digest, int offset) {
+        if (offset < 0 || digest.length - offset < SIZE) {
+            throw new IllegalArgumentException("Token hash must be " + SIZE + " bytes long");
+        }
+        return new ProtectedToken(digest, offset);
+    }
+
+    /**
+     * Returns the raw digest bytes.
+     *
+     * @return a new 32-byte array
+     */
+    public byte[] toBytes() {
+        var bytes = new byte[SIZE];
+        LONGS.set(bytes, 0, h0);
+        LONGS.set(bytes, Long.BYTES, h1);
+        LONGS.set(bytes, H2_OFFSET, h2);
+        LONGS.set(bytes, H3_OFFSET, h3);
+        return bytes;
+    }
+
+    /**
+     * Returns the Base64 representation of the digest.
+     *
+     * @return the Base64-encoded SHA-256 digest
+     */
+    public String getToken() {
+        return Base64.getEncoder().encodeToString(toBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "ProtectedToken(token=" + getToken() + ")";
+    }
+
+    private static byte[] decode(String token) {
+        var digest = Base64.getDecoder().decode(token);
+        if (digest.length != SIZE) {
+            throw new IllegalArgumentException("Token hash must be " + SIZE + " bytes long");
+        }
+        return digest;
+    }
+
+    private static long readLong(byte[] digest, int offset) {
+        return (long) LONGS.get(digest, offset);
+    }
 }
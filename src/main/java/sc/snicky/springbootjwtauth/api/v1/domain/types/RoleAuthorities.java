@@ -0,0 +1,129 @@
+package sc.snicky.springbootjwtauth.api.v1.domain.types;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Preallocated Spring Security authorities for {@link ERole}.
+ * <p>
+ * A combination of roles is represented as a bitmask where bit {@code n} stands for the role with ordinal {@code n}.
+ * One immutable authority instance exists per role, and the immutable role set and authority list of every
+ * possible combination are built once, so mapping roles to authorities on the request path allocates nothing.
+ */
+public final class RoleAuthorities {
+    /**
+     * Prefix Spring Security expects in front of a role name.
+     */
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * Upper bound for the number of roles, as the lists of all 2^n role combinations are preallocated.
+     */
+    private static final int MAX_ROLES = 16;
+
+    private static final ERole[] ROLES = ERole.values();
+    private static final GrantedAuthority[] AUTHORITIES = new GrantedAuthority[ROLES.length];
+    private static final Map<String, ERole> ROLES_BY_NAME = new HashMap<>();
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK = new ArrayList<>();
+    private static final List<Set<ERole>> ROLES_BY_MASK = new ArrayList<>();
+
+    static {
+        if (ROLES.length > MAX_ROLES) {
+            throw new IllegalStateException("Too many roles to preallocate all role combinations");
+        }
+        for (var role : ROLES) {
+            AUTHORITIES[role.ordinal()] = new SimpleGrantedAuthority(ROLE_PREFIX + role.name());
+            ROLES_BY_NAME.put(role.name(), role);
+            ROLES_BY_NAME.put(ROLE_PREFIX + role.name(), role);
+        }
+        for (int mask = 0; mask < 1 << ROLES.length; mask++) {
+            var roles = EnumSet.noneOf(ERole.class);
+            var authorities = new ArrayList<GrantedAuthority>();
+            for (var role : ROLES) {
+                if ((mask & mask(role)) != 0) {
+                    roles.add(role);
+                    authorities.add(AUTHORITIES[role.ordinal()]);
+                }
+            }
+            ROLES_BY_MASK.add(Collections.unmodifiableSet(roles));
+            AUTHORITIES_BY_MASK.add(List.copyOf(authorities));
+        }
+    }
+
+    private RoleAuthorities() {
+    }
+
+    /**
+     * Returns the shared authority of the given role.
+     *
+     * @param role the role
+     * @return the immutable authority, e.g. {@code ROLE_ADMIN}
+     */
+    public static GrantedAuthority of(ERole role) {
+        return AUTHORITIES[role.ordinal()];
+    }
+
+    /**
+     * Returns the bit representing the given role in a role bitmask.
+     *
+     * @param role the role
+     * @return the bit of the role
+     */
+    public static int mask(ERole role) {
+        return 1 << role.ordinal();
+    }
+
+    /**
+     * Returns the shared immutable list of authorities for a role bitmask.
+     *
+     * @param mask the role bitmask
+     * @return the authorities of all roles in the mask
+     * @throws IllegalArgumentException if the mask contains unknown roles
+     */
+    public static List<GrantedAuthority> forMask(int mask) {
+        return AUTHORITIES_BY_MASK.get(checkMask(mask));
+    }
+
+    /**
+     * Returns the shared immutable set of roles for a role bitmask.
+     *
+     * @param mask the role bitmask
+     * @return the roles in the mask
+     * @throws IllegalArgumentException if the mask contains unknown roles
+     */
+    public static Set<ERole> rolesForMask(int mask) {
+        return ROLES_BY_MASK.get(checkMask(mask));
+    }
+
+    /**
+     * Resolves a role from its authority or plain name, e.g. {@code ROLE_ADMIN} or {@code ADMIN},
+     * without any string manipulation.
+     *
+     * @param authority the authority or role name
+     * @return the matching role
+     * @throws IllegalArgumentException if no role matches
+     */
+    public static ERole fromAuthority(String authority) {
+        var role = ROLES_BY_NAME.get(authority);
+        if (role == null) {
+            throw new IllegalArgumentException("Unknown role: " + authority);
+        }
+        return role;
+    }
+
+    private static int checkMask(int mask) {
+        if (mask < 0 || mask >= AUTHORITIES_BY_MASK.size()) {
+            throw new IllegalArgumentException("Invalid role mask: " + mask);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,19 @@
+package sc.snicky.springbootjwtauth.api.v1.exceptions;
+
+/**
+ * Base type of the exceptions thrown on routine control flow, such as a bad login or an expired refresh token,
+ * and turned into an error response by a handler.
+ * <p>
+ * They are expected and carry all they mean in their type and message, so they neither capture a stack trace,
+ * the costly part of a throw, nor record suppressed exceptions.
+ */
+public abstract class BusinessException extends RuntimeException {
+    /**
+     * Constructs a new BusinessException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    protected BusinessException(String message) {
+        super(message, null, false, false);
+    }
+}
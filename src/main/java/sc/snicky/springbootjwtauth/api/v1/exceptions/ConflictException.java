@@ -1,6 +1,6 @@
 package sc.snicky.springbootjwtauth.api.v1.exceptions;
 
-public abstract class ConflictException extends RuntimeException {
+public abstract class ConflictException extends BusinessException {
     /**
      * Constructs a new ConflictException with the specified detail message.
      *
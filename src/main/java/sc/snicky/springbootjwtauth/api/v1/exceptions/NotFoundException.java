@@ -1,6 +1,6 @@
 package sc.snicky.springbootjwtauth.api.v1.exceptions;
 
-public abstract class NotFoundException extends RuntimeException {
+public abstract class NotFoundException extends BusinessException {
     /**
      * Constructor for NotFoundException.
      *
@@ -0,0 +1,21 @@
+package sc.snicky.springbootjwtauth.api.v1.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public abstract class ServiceUnavailableException extends BusinessException {
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new ServiceUnavailableException with the specified detail message.
+     *
+     * @param message the detail message
+     * @param wait    the time after which the client may retry
+     */
+    public ServiceUnavailableException(String message, Duration wait) {
+        super(message);
+        this.retryAfter = wait;
+    }
+}
@@ -0,0 +1,21 @@
+package sc.snicky.springbootjwtauth.api.v1.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public abstract class TooManyRequestsException extends BusinessException {
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new TooManyRequestsException with the specified detail message.
+     *
+     * @param message    the detail message
+     * @param retryDelay the time after which the client may retry
+     */
+    public TooManyRequestsException(String message, Duration retryDelay) {
+        super(message);
+        this.retryAfter = retryDelay;
+    }
+}
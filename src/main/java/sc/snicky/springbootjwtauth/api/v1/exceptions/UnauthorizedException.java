@@ -1,6 +1,6 @@
 package sc.snicky.springbootjwtauth.api.v1.exceptions;
 
-public abstract class UnauthorizedException extends RuntimeException {
+public abstract class UnauthorizedException extends BusinessException {
     /**
      * Constructs a new UnauthorizedException with the specified detail message.
      *
@@ -0,0 +1,17 @@
+package sc.snicky.springbootjwtauth.api.v1.exceptions.business.security;
+
+import sc.snicky.springbootjwtauth.api.v1.exceptions.TooManyRequestsException;
+
+import java.time.Duration;
+
+public class LoginRateLimitExceededException extends TooManyRequestsException {
+    /**
+     * Constructs a new LoginRateLimitExceededException exception with the specified detail message.
+     *
+     * @param message    the detail message
+     * @param retryAfter the time after which the client may retry
+     */
+    public LoginRateLimitExceededException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
@@ -0,0 +1,17 @@
+package sc.snicky.springbootjwtauth.api.v1.exceptions.business.security;
+
+import sc.snicky.springbootjwtauth.api.v1.exceptions.ServiceUnavailableException;
+
+import java.time.Duration;
+
+public class PasswordHashingOverloadedException extends ServiceUnavailableException {
+    /**
+     * Constructs a new PasswordHashingOverloadedException exception with the specified detail message.
+     *
+     * @param message    the detail message
+     * @param retryAfter the time after which the client may retry
+     */
+    public PasswordHashingOverloadedException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
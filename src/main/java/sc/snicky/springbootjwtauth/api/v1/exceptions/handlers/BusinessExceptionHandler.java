@@ -3,6 +3,7 @@ package sc.snicky.springbootjwtauth.api.v1.exceptions.handlers;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,8 +11,11 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import sc.snicky.springbootjwtauth.api.v1.dtos.responses.ErrorResponse;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.ConflictException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.NotFoundException;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.ServiceUnavailableException;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.TooManyRequestsException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.UnauthorizedException;
 
+import java.time.Duration;
 import java.time.Instant;
 
 @Slf4j
@@ -85,4 +89,49 @@ public class BusinessExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
+
+    /**
+     * Handles exceptions of type {@link ServiceUnavailableException}.
+     *
+     * @param ex the exception to handle
+     * @return a {@link ResponseEntity} containing the error response with HTTP status 503 (Service Unavailable)
+     * and a Retry-After header in seconds
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException ex) {
+        var errorResponse = new ErrorResponse(
+                "Service Unavailable",
+                ex.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(ex.getRetryAfter())))
+                .body(errorResponse);
+    }
+
+    /**
+     * Handles exceptions of type {@link TooManyRequestsException}.
+     *
+     * @param ex the exception to handle
+     * @return a {@link ResponseEntity} containing the error response with HTTP status 429 (Too Many Requests)
+     * and a Retry-After header in seconds
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(TooManyRequestsException ex) {
+        var errorResponse = new ErrorResponse(
+                "Too Many Requests",
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds(ex.getRetryAfter())))
+                .body(errorResponse);
+    }
+
+    private static long retryAfterSeconds(Duration retryAfter) {
+        var seconds = retryAfter.toSeconds();
+        return Math.max(1, retryAfter.toNanosPart() > 0 ? seconds + 1 : seconds);
+    }
 }
@@ -9,10 +9,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenService;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
+import sc.snicky.springbootjwtauth.api.v1.services.VerifiedAccessTokenCache;
 
 import java.io.IOException;
 
@@ -22,7 +22,7 @@ import java.io.IOException;
 public class AuthenticationFilter extends OncePerRequestFilter {
     public static final String BEARER_PREFIX = "Bearer ";
     public static final String HEADER_NAME = "Authorization";
-    private final AccessTokenService accessTokenService;
+    private final VerifiedAccessTokenCache verifiedAccessTokenCache;
 
 
     /**
@@ -45,9 +45,9 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         }
 
         var jwt = authHeader.substring(BEARER_PREFIX.length());
-        UserDetails userDetails;
+        VerifiedAccessToken verifiedToken;
         try {
-            userDetails = accessTokenService.extractUserDetails(jwt);
+            verifiedToken = verifiedAccessTokenCache.verify(jwt);
         } catch (JwtException e) {
             log.error("Cannot extract user details from JWT", e);
             filterChain.doFilter(request, response);
@@ -56,12 +56,12 @@ public class AuthenticationFilter extends OncePerRequestFilter {
 
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
             var context = SecurityContextHolder.createEmptyContext();
-            var auth = UsernamePasswordAuthenticationToken.authenticated(userDetails.getUsername(),
+            var auth = UsernamePasswordAuthenticationToken.authenticated(verifiedToken.subject(),
                     null,
-                    userDetails.getAuthorities());
+                    verifiedToken.authorities());
             context.setAuthentication(auth);
             SecurityContextHolder.setContext(context);
-            log.info("Authentication Successfully for user {}", userDetails.getUsername());
+            log.info("Authentication Successfully for user {}", verifiedToken.subject());
         }
         filterChain.doFilter(request, response);
     }
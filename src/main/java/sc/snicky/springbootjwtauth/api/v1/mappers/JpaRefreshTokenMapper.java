@@ -24,5 +24,7 @@ public interface JpaRefreshTokenMapper {
      */
     @Mapping(target = "exp", source = "expiresAt")
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "familyId", ignore = true)
+    @Mapping(target = "generation", ignore = true)
     JpaRefreshToken toJpaRefreshToken(BasicRefreshToken basicRefreshToken);
 }
@@ -4,6 +4,8 @@ import org.springframework.stereotype.Repository;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +20,16 @@ public interface BasicRefreshTokenRepository {
      */
     void save(BasicRefreshToken token);
 
+    /**
+     * Saves a token and removes the oldest active tokens of its user beyond the given number of sessions,
+     * in the same atomic operation.
+     *
+     * @param token       the token
+     * @param maxSessions the maximum number of active tokens the user keeps, including the new one
+     * @return the hashed values of the removed tokens
+     */
+    List<ProtectedToken> saveEvictingOldest(BasicRefreshToken token, int maxSessions);
+
     /**
      * Find token by uuid of token.
      *
@@ -39,4 +51,41 @@ public interface BasicRefreshTokenRepository {
      * @param userId the ID of the user whose tokens should be deleted
      */
     void deleteAllByUserId(Integer userId);
+
+    /**
+     * Revokes every token of the family of a token that was already rotated, after that token was presented again.
+     * Called only when a rotation fails, so detecting reuse costs nothing on the normal refresh path.
+     * Every storage keeps rotated tokens, inactive, until they expire, so that their reuse can be detected.
+     *
+     * @param reusedToken the hashed value of the presented token
+     * @return the hashed values of the revoked tokens, empty if the token is not a rotated one
+     */
+    List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken);
+
+    /**
+     * Replaces an active, unexpired token with a new one that keeps its user and expiration.
+     * The default implementation is a find, delete and save, which is atomic only inside a transaction;
+     * implementations should override it with a single atomic operation when the storage offers one.
+     *
+     * @param oldToken the hashed value of the token to replace
+     * @param newToken the hashed value of the replacement token
+     * @return the stored replacement token, or empty if the old token is unknown, inactive or expired
+     */
+    default Optional<BasicRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        var now = Instant.now();
+        return findByToken(oldToken)
+                .filter(token -> Boolean.TRUE.equals(token.getIsActive()) && token.getExpiresAt().isAfter(now))
+                .map(token -> {
+                    delete(oldToken);
+                    var rotated = BasicRefreshToken.builder()
+                            .token(newToken)
+                            .user(token.getUser())
+                            .isActive(true)
+                            .expiresAt(token.getExpiresAt())
+                            .createdAt(now)
+                            .build();
+                    save(rotated);
+                    return rotated;
+                });
+    }
 }
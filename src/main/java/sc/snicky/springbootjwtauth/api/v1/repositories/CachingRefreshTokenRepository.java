@@ -0,0 +1,237 @@
+package sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository decorator caching token lookups of another repository in two local, bounded tiers.
+ * <p>
+ * Found tokens are cached as plain records rather than entities, and resolve their user as a lazy reference,
+ * like the underlying repositories do. An entry lives until its token expires, but at most {@code ttl}, which
+ * bounds how long another node may still accept a token revoked elsewhere. Unknown hashes are cached in a
+ * second tier for {@code negativeTtl}, so repeated lookups of garbage tokens do not reach the database either.
+ * <p>
+ * Writes go to the underlying repository and invalidate the affected entries right away and once more when the
+ * surrounding transaction completes, so a lookup running concurrently with the transaction cannot cache a row
+ * it is about to change. Both tiers publish hit, miss and eviction counters as {@code cache.*} meters tagged with
+ * {@code cache=refresh_tokens} and {@code cache=refresh_tokens_missing}; a lookup reaching the database is a miss
+ * in both.
+ */
+public class CachingRefreshTokenRepository implements BasicRefreshTokenRepository {
+    private static final String CACHE_NAME = "refresh_tokens";
+    private static final String MISSING_CACHE_NAME = "refresh_tokens_missing";
+
+    private final BasicRefreshTokenRepository delegate;
+    private final JpaUserRepository jpaUserRepository;
+    private final Cache<ProtectedToken, CachedToken> tokens;
+    private final Cache<ProtectedToken, Boolean> missingTokens;
+
+    /**
+     * Creates the decorator.
+     *
+     * @param storage        the repository storing the tokens
+     * @param userRepository the JPA user repository resolving token owners on a cache hit
+     * @param maxSize        the maximum number of entries of each tier
+     * @param ttl            the maximum time a found token is cached
+     * @param negativeTtl    the time an unknown hash is cached
+     * @param meterRegistry  the registry the cache statistics are published to, or {@code null}
+     */
+    public CachingRefreshTokenRepository(BasicRefreshTokenRepository storage, JpaUserRepository userRepository,
+                                         long maxSize, Duration ttl, Duration negativeTtl, MeterRegistry meterRegistry) {
+        this.delegate = storage;
+        this.jpaUserRepository = userRepository;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry(ttl))
+                .recordStats()
+                .build();
+        this.missingTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, tokens, CACHE_NAME);
+            CaffeineCacheMetrics.monitor(meterRegistry, missingTokens, MISSING_CACHE_NAME);
+        }
+    }
+
+    /**
+     * Saves the token and drops a cached miss of its hash.
+     *
+     * @param token the token
+     */
+    @Override
+    public void save(BasicRefreshToken token) {
+        delegate.save(token);
+        invalidateOnCompletion(token.getToken());
+    }
+
+    /**
+     * Saves the token, evicting the oldest sessions of its user, and drops the entries of every affected token.
+     *
+     * @param token       the token
+     * @param maxSessions the maximum number of active tokens the user keeps, including the new one
+     * @return the hashed values of the removed tokens
+     */
+    @Override
+    public List<ProtectedToken> saveEvictingOldest(BasicRefreshToken token, int maxSessions) {
+        var evicted = delegate.saveEvictingOldest(token, maxSessions);
+        invalidateOnCompletion(token.getToken());
+        evicted.forEach(this::invalidateOnCompletion);
+        return evicted;
+    }
+
+    /**
+     * Finds a token in the cache tiers, and in the underlying repository only if neither tier knows its hash.
+     *
+     * @param token the hashed value of token
+     * @return the optional
+     */
+    @Override
+    public Optional<BasicRefreshToken> findByToken(ProtectedToken token) {
+        var cached = tokens.getIfPresent(token);
+        if (cached != null) {
+            return Optional.of(cached.toBasicRefreshToken(token, jpaUserRepository));
+        }
+        if (missingTokens.getIfPresent(token) != null) {
+            return Optional.empty();
+        }
+        var found = delegate.findByToken(token);
+        if (found.isPresent()) {
+            tokens.put(token, CachedToken.of(found.get()));
+        } else {
+            missingTokens.put(token, Boolean.TRUE);
+        }
+        return found;
+    }
+
+    /**
+     * Deletes the token and drops its cached entry.
+     *
+     * @param token the hashed value of token
+     */
+    @Override
+    public void delete(ProtectedToken token) {
+        delegate.delete(token);
+        invalidateOnCompletion(token);
+    }
+
+    /**
+     * Deletes all tokens of the user and drops their cached entries.
+     * Finding them scans the bounded cache, which is acceptable for this rare operation.
+     *
+     * @param userId the ID of the user whose tokens should be deleted
+     */
+    @Override
+    public void deleteAllByUserId(Integer userId) {
+        delegate.deleteAllByUserId(userId);
+        runNowAndOnCompletion(() -> tokens.asMap().values().removeIf(cached -> cached.userId().equals(userId)));
+    }
+
+    /**
+     * Rotates the token in the underlying repository, bypassing the cache, and drops the entries of both hashes.
+     *
+     * @param oldToken the hashed value of the token to replace
+     * @param newToken the hashed value of the replacement token
+     * @return the stored replacement token, or empty if the old token is unknown, inactive or expired
+     */
+    @Override
+    public Optional<BasicRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        var rotated = delegate.rotate(oldToken, newToken);
+        invalidateOnCompletion(oldToken);
+        invalidateOnCompletion(newToken);
+        return rotated;
+    }
+
+    /**
+     * Revokes the family in the underlying repository and drops the entries of every revoked token.
+     *
+     * @param reusedToken the hashed value of the presented token
+     * @return the hashed values of the revoked tokens, empty if the token is not a rotated one
+     */
+    @Override
+    public List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken) {
+        var revoked = delegate.revokeFamilyOf(reusedToken);
+        revoked.forEach(this::invalidateOnCompletion);
+        return revoked;
+    }
+
+    private void invalidateOnCompletion(ProtectedToken token) {
+        runNowAndOnCompletion(() -> {
+            tokens.invalidate(token);
+            missingTokens.invalidate(token);
+        });
+    }
+
+    private static void runNowAndOnCompletion(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * A cached token without its hash and with its user reduced to the ID.
+     *
+     * @param userId    the ID of the token owner
+     * @param isActive  whether the token is active
+     * @param expiresAt the expiration instant
+     * @param createdAt the creation instant
+     */
+    private record CachedToken(Integer userId, Boolean isActive, Instant expiresAt, Instant createdAt) {
+        private static CachedToken of(BasicRefreshToken token) {
+            return new CachedToken(token.getUser().getId(), token.getIsActive(), token.getExpiresAt(), token.getCreatedAt());
+        }
+
+        private BasicRefreshToken toBasicRefreshToken(ProtectedToken token, JpaUserRepository userRepository) {
+            return BasicRefreshToken.builder()
+                    .token(token)
+                    .user(userRepository.getReferenceById(userId))
+                    .isActive(isActive)
+                    .expiresAt(expiresAt)
+                    .createdAt(createdAt)
+                    .build();
+        }
+    }
+
+    /**
+     * Expiry policy that keeps an entry until its token expires, but no longer than the configured time to live.
+     *
+     * @param ttl the maximum time an entry is kept
+     */
+    private record UntilTokenExpiry(Duration ttl) implements Expiry<ProtectedToken, CachedToken> {
+        @Override
+        public long expireAfterCreate(ProtectedToken key, CachedToken value, long currentTime) {
+            var untilExpiry = Duration.between(Instant.now(), value.expiresAt());
+            return Math.max(0, Math.min(ttl.toNanos(), untilExpiry.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(ProtectedToken key, CachedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ProtectedToken key, CachedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Repository implementation keeping tokens in the memory of a single node.
+ * <p>
+ * Tokens live in a {@link ConcurrentHashMap} keyed by their hash, so lookups and writes only contend on one bin.
+ * A per-user index makes {@code deleteAllByUserId} proportional to the user's tokens. Every write of a user's
+ * tokens runs inside the atomic {@code compute} of the user's index entry, so writes of one user are serialized:
+ * a token saved during a concurrent {@code deleteAllByUserId} is either deleted with the others or saved after,
+ * and a rotation never interleaves with the eviction of the user's oldest sessions. Expired tokens are never
+ * returned, and a background sweep removes them: expirations are grouped
+ * into one bucket per tick, and every tick the sweep takes the buckets that came due, so each token is visited
+ * once, when it expires, instead of the whole map being scanned.
+ * <p>
+ * A rotated token stays in the map, inactive, until it expires, so that presenting it again is detected as reuse
+ * and revokes the active token of its family. Only active tokens are in the per-user index, so inactive ones do not
+ * count as sessions; {@code deleteAllByUserId} leaves them to the sweep, as their family has nothing left to revoke.
+ * <p>
+ * When a snapshot file is configured, the tokens are loaded from it at startup and written to it periodically
+ * and on shutdown, so they survive a restart of the node.
+ */
+@Slf4j
+public class InMemoryRefreshTokenRepositoryImpl implements BasicRefreshTokenRepository, AutoCloseable {
+    private static final int SNAPSHOT_FORMAT_VERSION = 2;
+    private static final int SNAPSHOT_FORMAT_VERSION_WITHOUT_FAMILIES = 1;
+
+    private final Map<ProtectedToken, StoredToken> tokens = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<ProtectedToken>> tokensByUser = new ConcurrentHashMap<>();
+    private final JpaUserRepository jpaUserRepository;
+    private final ExpiryBuckets expiryBuckets;
+    private final Path snapshotPath;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the repository, loads the snapshot if there is one, and starts the background jobs.
+     *
+     * @param userRepository     the JPA user repository resolving token owners
+     * @param sweepTickMs        the resolution of the expiry sweeper in milliseconds
+     * @param snapshotFile       the snapshot file, or {@code null} to keep tokens in memory only
+     * @param snapshotIntervalMs how often the snapshot is written in milliseconds
+     */
+    public InMemoryRefreshTokenRepositoryImpl(JpaUserRepository userRepository, long sweepTickMs,
+                                              Path snapshotFile, long snapshotIntervalMs) {
+        this.jpaUserRepository = userRepository;
+        this.expiryBuckets = new ExpiryBuckets(sweepTickMs, System.currentTimeMillis());
+        this.snapshotPath = snapshotFile;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            loadSnapshot();
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("refresh-token-store").factory());
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepTickMs, sweepTickMs, TimeUnit.MILLISECONDS);
+        if (snapshotPath != null) {
+            scheduler.scheduleWithFixedDelay(this::writeSnapshotSafely,
+                    snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stores the given refresh token.
+     *
+     * @param token the refresh token to be stored
+     */
+    @Override
+    public void save(BasicRefreshToken token) {
+        var createdAt = token.getCreatedAt() != null ? token.getCreatedAt() : Instant.now();
+        store(token.getToken(), new StoredToken(token.getUser().getId(),
+                token.getExpiresAt().toEpochMilli(), createdAt.toEpochMilli(), token.getToken(), true));
+    }
+
+    /**
+     * Stores the given refresh token and removes the oldest tokens of its user beyond the given number of sessions.
+     * The eviction runs under the lock of the user's index entry, so concurrent logins of a user cannot both
+     * keep too many tokens.
+     *
+     * @param token       the refresh token to be stored
+     * @param maxSessions the maximum number of tokens the user keeps, including the new one
+     * @return the hashes of the removed tokens
+     */
+    @Override
+    public List<ProtectedToken> saveEvictingOldest(BasicRefreshToken token, int maxSessions) {
+        save(token);
+        var evicted = new ArrayList<ProtectedToken>();
+        tokensByUser.computeIfPresent(token.getUser().getId(), (userId, userTokens) -> {
+            if (userTokens.size() <= maxSessions) {
+                return userTokens;
+            }
+            var newestFirst = new ArrayList<>(userTokens);
+            newestFirst.sort(Comparator.comparing((ProtectedToken hash) -> !hash.equals(token.getToken()))
+                    .thenComparing(this::createdAtOf, Comparator.reverseOrder()));
+            for (var hash : newestFirst.subList(maxSessions, newestFirst.size())) {
+                userTokens.remove(hash);
+                tokens.remove(hash);
+                evicted.add(hash);
+            }
+            return userTokens.isEmpty() ? null : userTokens;
+        });
+        return evicted;
+    }
+
+    /**
+     * Retrieves an unexpired refresh token by its hash, including a rotated, inactive one.
+     *
+     * @param token the hash of the token to look up
+     * @return an Optional containing the refresh token if found, otherwise empty
+     */
+    @Override
+    public Optional<BasicRefreshToken> findByToken(ProtectedToken token) {
+        var stored = tokens.get(token);
+        if (stored == null || stored.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(toBasicRefreshToken(token, stored));
+    }
+
+    /**
+     * Removes a refresh token by its hash.
+     *
+     * @param token the hash of the refresh token to be removed
+     */
+    @Override
+    public void delete(ProtectedToken token) {
+        var stored = tokens.remove(token);
+        if (stored != null && stored.active()) {
+            unindex(stored.userId(), token);
+        }
+    }
+
+    /**
+     * Removes all refresh tokens of the specified user.
+     *
+     * @param userId the ID of the user whose refresh tokens should be removed
+     */
+    @Override
+    public void deleteAllByUserId(Integer userId) {
+        tokensByUser.computeIfPresent(userId, (id, userTokens) -> {
+            userTokens.forEach(tokens::remove);
+            return null;
+        });
+    }
+
+    /**
+     * Atomically replaces a token with a new one of the same family that keeps its user and expiration.
+     * The old token is kept, inactive, until it expires. The replacement runs under the lock of the user's index
+     * entry, like the eviction of the user's oldest sessions. Only one of several concurrent rotations of the same
+     * token can deactivate it, so only one succeeds.
+     *
+     * @param oldToken the hash of the token to replace
+     * @param newToken the hash of the replacement token
+     * @return the stored replacement token, or empty if the old token is unknown, inactive or expired
+     */
+    @Override
+    public Optional<BasicRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        var stored = tokens.get(oldToken);
+        long now = System.currentTimeMillis();
+        if (stored == null || !stored.active() || stored.expiresAt() <= now) {
+            return Optional.empty();
+        }
+        var rotated = new StoredToken(stored.userId(), stored.expiresAt(), now, stored.family(), true);
+        var replaced = new boolean[1];
+        tokensByUser.computeIfPresent(stored.userId(), (userId, userTokens) -> {
+            if (!tokens.replace(oldToken, stored, stored.deactivated())) {
+                return userTokens;
+            }
+            userTokens.remove(oldToken);
+            tokens.put(newToken, rotated);
+            userTokens.add(newToken);
+            replaced[0] = true;
+            return userTokens;
+        });
+        if (!replaced[0]) {
+            return Optional.empty();
+        }
+        expiryBuckets.schedule(newToken, rotated.expiresAt());
+        return Optional.of(toBasicRefreshToken(newToken, rotated));
+    }
+
+    /**
+     * Removes the active token of the family of a rotated token, under the lock of the user's index entry,
+     * so it cannot interleave with a rotation of that token.
+     *
+     * @param reusedToken the hash of the presented token
+     * @return the hashes of the removed tokens, empty if the token is unknown, still active or expired
+     */
+    @Override
+    public List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken) {
+        var reused = tokens.get(reusedToken);
+        if (reused == null || reused.active() || reused.expiresAt() <= System.currentTimeMillis()) {
+            return List.of();
+        }
+        var revoked = new ArrayList<ProtectedToken>();
+        tokensByUser.computeIfPresent(reused.userId(), (userId, userTokens) -> {
+            for (var iterator = userTokens.iterator(); iterator.hasNext();) {
+                var hash = iterator.next();
+                var stored = tokens.get(hash);
+                if (stored != null && stored.family().equals(reused.family()) && tokens.remove(hash, stored)) {
+                    iterator.remove();
+                    revoked.add(hash);
+                }
+            }
+            return userTokens.isEmpty() ? null : userTokens;
+        });
+        return revoked;
+    }
+
+    /**
+     * Returns the number of stored tokens, including inactive ones and expired ones not swept yet.
+     *
+     * @return the number of stored tokens
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Removes the tokens that expired since the last sweep. Runs on the background thread every tick.
+     */
+    public synchronized void sweep() {
+        long now = System.currentTimeMillis();
+        expiryBuckets.advance(now, token -> {
+            var stored = tokens.get(token);
+            // a token saved again with a later expiration was scheduled again by that save
+            if (stored != null && stored.expiresAt() <= now && tokens.remove(token, stored) && stored.active()) {
+                unindex(stored.userId(), token);
+            }
+        });
+    }
+
+    /**
+     * Stops the background jobs and writes the final snapshot.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (snapshotPath != null) {
+            writeSnapshotSafely();
+        }
+    }
+
+    private void store(ProtectedToken token, StoredToken stored) {
+        if (!stored.active()) {
+            tokens.put(token, stored);
+            expiryBuckets.schedule(token, stored.expiresAt());
+            return;
+        }
+        tokensByUser.compute(stored.userId(), (userId, userTokens) -> {
+            var result = userTokens != null ? userTokens : new HashSet<ProtectedToken>();
+            tokens.put(token, stored);
+            result.add(token);
+            return result;
+        });
+        expiryBuckets.schedule(token, stored.expiresAt());
+    }
+
+    /**
+     * Returns the creation time a token is ranked by when evicting sessions; tokens that are gone or expired
+     * but not swept yet rank as the oldest.
+     *
+     * @param token the hash of the token
+     * @return the creation time in epoch milliseconds, or {@link Long#MIN_VALUE}
+     */
+    private long createdAtOf(ProtectedToken token) {
+        var stored = tokens.get(token);
+        return stored != null && stored.expiresAt() > System.currentTimeMillis() ? stored.createdAt() : Long.MIN_VALUE;
+    }
+
+    private void unindex(int userId, ProtectedToken token) {
+        tokensByUser.computeIfPresent(userId, (id, userTokens) -> {
+            userTokens.remove(token);
+            return userTokens.isEmpty() ? null : userTokens;
+        });
+    }
+
+    private BasicRefreshToken toBasicRefreshToken(ProtectedToken token, StoredToken stored) {
+        return BasicRefreshToken.builder()
+                .token(token)
+                .user(jpaUserRepository.getReferenceById(stored.userId()))
+                .isActive(stored.active())
+                .expiresAt(Instant.ofEpochMilli(stored.expiresAt()))
+                .createdAt(Instant.ofEpochMilli(stored.createdAt()))
+                .build();
+    }
+
+    private void loadSnapshot() {
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            int version = in.readInt();
+            if (version != SNAPSHOT_FORMAT_VERSION && version != SNAPSHOT_FORMAT_VERSION_WITHOUT_FAMILIES) {
+                log.warn("Ignoring refresh token snapshot {} with an unknown format", snapshotPath);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var token = readDigest(in);
+                int userId = in.readInt();
+                long expiresAt = in.readLong();
+                long createdAt = in.readLong();
+                var stored = version == SNAPSHOT_FORMAT_VERSION
+                        ? new StoredToken(userId, expiresAt, createdAt, readDigest(in), in.readBoolean())
+                        : new StoredToken(userId, expiresAt, createdAt, token, true);
+                if (stored.expiresAt() > now) {
+                    store(token, stored);
+                    loaded++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read refresh token snapshot " + snapshotPath, e);
+        }
+        log.info("Loaded {} refresh tokens from snapshot {}", loaded, snapshotPath);
+    }
+
+    private void writeSnapshotSafely() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write refresh token snapshot {}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Writes all unexpired tokens to a temporary file and moves it over the snapshot,
+     * so a crash while writing never leaves a truncated snapshot behind.
+     */
+    private void writeSnapshot() throws IOException {
+        long now = System.currentTimeMillis();
+        var entries = new ArrayList<Map.Entry<ProtectedToken, StoredToken>>(tokens.size());
+        for (var entry : tokens.entrySet()) {
+            if (entry.getValue().expiresAt() > now) {
+                entries.add(entry);
+            }
+        }
+        var parent = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var tempFile = Files.createTempFile(parent, snapshotPath.getFileName().toString(), ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(SNAPSHOT_FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (var entry : entries) {
+                var stored = entry.getValue();
+                out.write(entry.getKey().toBytes());
+                out.writeInt(stored.userId());
+                out.writeLong(stored.expiresAt());
+                out.writeLong(stored.createdAt());
+                out.write(stored.family().toBytes());
+                out.writeBoolean(stored.active());
+            }
+        }
+        Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Wrote {} refresh tokens to snapshot {}", entries.size(), snapshotPath);
+    }
+
+    private static ProtectedToken readDigest(DataInputStream in) throws IOException {
+        return new ProtectedToken(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    /**
+     * A stored token without its hash, with instants as epoch milliseconds.
+     *
+     * @param userId    the ID of the token owner
+     * @param expiresAt the expiration instant
+     * @param createdAt the creation instant
+     * @param family    the hash of the first token of the family, which every rotation passes on
+     * @param active    whether the token can still be rotated, false once it was
+     */
+    private record StoredToken(int userId, long expiresAt, long createdAt, ProtectedToken family, boolean active) {
+        private StoredToken deactivated() {
+            return new StoredToken(userId, expiresAt, createdAt, family, false);
+        }
+    }
+
+    /**
+     * Token expirations grouped by tick.
+     * <p>
+     * A token is put into the bucket of the first tick starting at or after its expiration, and each tick the
+     * buckets of the ticks that passed are removed whole and drained, so a token is only visited once it is due.
+     * Buckets are lists mutated only inside the atomic {@code compute} of their map entry, and a bucket removed by
+     * the sweep is never written again: scheduling into a tick the sweep has already passed moves on to the next one.
+     */
+    private static final class ExpiryBuckets {
+        private final long tickMs;
+        private final Map<Long, List<ProtectedToken>> buckets = new ConcurrentHashMap<>();
+        private volatile long lastTick;
+
+        private ExpiryBuckets(long tickLengthMs, long nowMs) {
+            this.tickMs = tickLengthMs;
+            this.lastTick = nowMs / tickLengthMs - 1;
+        }
+
+        /**
+         * Puts the token into the bucket of the first tick starting at or after its expiration,
+         * or of the next tick to sweep if that one has passed already.
+         *
+         * @param token       the hash of the token
+         * @param expiresAtMs the expiration of the token in epoch milliseconds
+         */
+        private void schedule(ProtectedToken token, long expiresAtMs) {
+            long tick = Math.ceilDiv(expiresAtMs, tickMs);
+            var scheduled = new boolean[1];
+            while (!scheduled[0]) {
+                buckets.compute(Math.max(tick, lastTick + 1), (bucketTick, bucket) -> {
+                    if (bucketTick <= lastTick) {
+                        return bucket;
+                    }
+                    var result = bucket != null ? bucket : new ArrayList<ProtectedToken>();
+                    result.add(token);
+                    scheduled[0] = true;
+                    return result;
+                });
+            }
+        }
+
+        /**
+         * Drains the buckets of all ticks up to now. Callers must not run it concurrently.
+         *
+         * @param nowMs  the current time
+         * @param expire removes the token if it is still stored and due
+         */
+        private void advance(long nowMs, Consumer<ProtectedToken> expire) {
+            long currentTick = nowMs / tickMs;
+            for (long tick = lastTick + 1; tick <= currentTick; tick++) {
+                lastTick = tick;
+                var due = buckets.remove(tick);
+                if (due == null) {
+                    continue;
+                }
+                due.forEach(expire);
+            }
+        }
+    }
+}
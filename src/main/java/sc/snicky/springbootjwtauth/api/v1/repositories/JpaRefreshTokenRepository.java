@@ -1,33 +1,22 @@
 package sc.snicky.springbootjwtauth.api.v1.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.JpaRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 
-import java.util.Optional;
-
 @Repository
-public interface JpaRefreshTokenRepository extends JpaRepository<JpaRefreshToken, ProtectedToken> {
-    /**
-     * Finds a refresh token by its value.
-     *
-     * @param refreshToken the refresh token value
-     * @return an Optional containing the refresh token if found
-     */
-    Optional<JpaRefreshToken> findByToken(ProtectedToken refreshToken);
-
+public interface JpaRefreshTokenRepository extends JpaRepository<JpaRefreshToken, ProtectedToken>, JpaRefreshTokenRepositoryCustom {
     /**
-     * Deletes all refresh tokens associated with the given user ID.
+     * Deletes all refresh tokens associated with the given user ID in a single statement,
+     * without loading the tokens first.
      *
      * @param userId the user ID
+     * @return the number of deleted tokens
      */
-    void deleteAllByUserId(Integer userId);
-
-    /**
-     * Deletes a refresh token by its value.
-     *
-     * @param refreshToken the refresh token value
-     */
-    void deleteByToken(ProtectedToken refreshToken);
+    @Modifying(flushAutomatically = true)
+    @Query("delete from JpaRefreshToken t where t.user.id = :userId")
+    int deleteAllByUserId(Integer userId);
 }
@@ -0,0 +1,123 @@
+package sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import sc.snicky.springbootjwtauth.api.v1.domain.models.JpaRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Refresh token queries that Spring Data cannot derive, implemented with native SQL.
+ */
+public interface JpaRefreshTokenRepositoryCustom {
+    /**
+     * Finds a refresh token by its value, through {@code token_lookup}.
+     *
+     * @param token the hash of the token
+     * @return an Optional containing the refresh token if found
+     */
+    Optional<JpaRefreshToken> findByToken(ProtectedToken token);
+
+    /**
+     * Deletes a refresh token by its value, through {@code token_lookup}.
+     *
+     * @param token the hash of the token
+     */
+    void deleteByToken(ProtectedToken token);
+
+    /**
+     * Atomically deactivates an active, unexpired token and inserts the next generation of its family
+     * in a single statement, keeping its user and expiration.
+     *
+     * @param oldToken the hash of the token to replace
+     * @param newToken the hash of the replacement token
+     * @return the detached replacement token with a lazy user reference, or empty if no row matched
+     */
+    Optional<JpaRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken);
+
+    /**
+     * Inserts a new token and deletes the oldest active tokens of its user beyond the given number of sessions,
+     * in a single statement.
+     *
+     * @param token       the hash of the new token
+     * @param userId      the ID of the token owner
+     * @param expiresAt   the expiration instant of the new token
+     * @param maxSessions the maximum number of active tokens the user keeps, including the new one
+     * @return the hashes of the deleted tokens
+     */
+    List<ProtectedToken> insertEvictingOldest(ProtectedToken token, Integer userId, Instant expiresAt, int maxSessions);
+
+    /**
+     * Revokes the family of a token that was already rotated, as presenting it again means it was stolen.
+     *
+     * @param reusedToken the hash of the presented token
+     * @return the hashes of the revoked tokens, empty if the token is not a rotated generation
+     */
+    List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken);
+
+    /**
+     * Tries to take the transaction-scoped PostgreSQL advisory lock with the given key.
+     * The lock is released when the surrounding transaction ends.
+     *
+     * @param key the lock key
+     * @return true if the lock was taken, false if another session holds it
+     */
+    boolean tryAdvisoryTransactionLock(long key);
+
+    /**
+     * Deletes the next batch of expired tokens, in {@code (exp, id)} order after the given position,
+     * skipping rows locked by concurrent transactions. The expiration is the column value, without a time zone.
+     *
+     * @param afterExp  the expiration to continue after, with {@code afterId}
+     * @param afterId   the ID to continue after, exclusive
+     * @param batchSize the maximum number of rows to delete
+     * @return the number of deleted rows and the position of the last deleted one
+     */
+    PurgedBatch purgeExpiredBatch(LocalDateTime afterExp, int afterId, int batchSize);
+
+    /**
+     * Pre-creates the daily partitions of the tokens table up to the given number of days ahead.
+     *
+     * @param premakeDays the number of days ahead to create partitions for
+     * @return the number of created partitions
+     */
+    int createPartitions(int premakeDays);
+
+    /**
+     * Finds the daily partitions of the tokens table whose tokens have all expired.
+     *
+     * @return the names of the expired partitions, oldest first
+     */
+    List<String> findExpiredPartitions();
+
+    /**
+     * Drops an expired daily partition of the tokens table. Dropping takes an {@code ACCESS EXCLUSIVE} lock on
+     * the tokens table until the surrounding transaction ends, so the caller should commit right after.
+     *
+     * @param partitionName the name of the partition
+     * @param lockTimeout   how long to wait for the lock on the tokens table before failing
+     */
+    void dropPartition(String partitionName, Duration lockTimeout);
+
+    /**
+     * One batch deleted by {@link #purgeExpiredBatch(LocalDateTime, int, int)}.
+     *
+     * @param count   the number of deleted rows
+     * @param lastExp the expiration of the last deleted row, or the given one if no row was deleted
+     * @param lastId  the ID of the last deleted row, or the given one if no row was deleted
+     */
+    record PurgedBatch(int count, LocalDateTime lastExp, int lastId) {
+    }
+
+    /**
+     * The changes made by one run of the partition maintenance.
+     *
+     * @param created the number of created partitions
+     * @param dropped the number of dropped partitions
+     */
+    record PartitionChanges(int created, int dropped) {
+    }
+}
@@ -0,0 +1,303 @@
+package sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.JpaRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Native SQL implementation of {@link JpaRefreshTokenRepositoryCustom}, picked up by Spring Data
+ * as a fragment of {@link JpaRefreshTokenRepository}.
+ */
+public class JpaRefreshTokenRepositoryCustomImpl implements JpaRefreshTokenRepositoryCustom {
+    /**
+     * Reads the expiration of the token from {@code token_lookup} first, so the scan of the tokens table is pruned
+     * at execution time to the one partition holding it instead of probing the token index of every partition.
+     * The statements looking a token up by its hash all use this condition.
+     */
+    private static final String TOKEN_CONDITION = "token = :%1$s AND exp = (SELECT exp FROM token_lookup WHERE token = :%1$s)";
+
+    private static final String FIND_BY_TOKEN_SQL = "SELECT * FROM tokens WHERE " + TOKEN_CONDITION.formatted("token");
+
+    private static final String DELETE_BY_TOKEN_SQL = "DELETE FROM tokens WHERE " + TOKEN_CONDITION.formatted("token");
+
+    /**
+     * Deactivates the presented token and inserts the next generation of its family, returning what the caller
+     * needs, in one round trip. The new row keeps {@code exp}, so it lands in the same partition.
+     * {@code exp} and {@code created_at} are {@code TIMESTAMP} columns, so they are compared with
+     * {@code LOCALTIMESTAMP}, the same session-local clock Hibernate writes them with.
+     */
+    private static final String ROTATE_SQL = """
+            WITH rotated AS (
+                UPDATE tokens
+                SET is_active = FALSE
+                WHERE %s AND is_active AND exp > LOCALTIMESTAMP
+                RETURNING user_id, exp, family_id, generation
+            )
+            INSERT INTO tokens (token, user_id, exp, family_id, generation)
+            SELECT :newToken, user_id, exp, family_id, generation + 1 FROM rotated
+            RETURNING user_id, exp, created_at
+            """.formatted(TOKEN_CONDITION.formatted("oldToken"));
+
+    /**
+     * Inserts the token and deletes the user's older sessions in one round trip. All parts of the statement see
+     * the table as it was before it, so the ranking does not include the new token and keeps one session less.
+     * The ranking reads the user's tokens through the user index.
+     */
+    private static final String INSERT_EVICTING_OLDEST_SQL = """
+            WITH inserted AS (
+                INSERT INTO tokens (token, user_id, exp) VALUES (:token, :userId, :expiresAt)
+            ), evicted AS (
+                DELETE FROM tokens
+                WHERE (id, exp) IN (
+                    SELECT id, exp FROM (
+                        SELECT id, exp, row_number() OVER (ORDER BY created_at DESC, id DESC) AS session
+                        FROM tokens
+                        WHERE user_id = :userId AND is_active AND exp > LOCALTIMESTAMP
+                    ) sessions
+                    WHERE session >= :maxSessions
+                )
+                RETURNING token
+            )
+            SELECT token FROM evicted
+            """;
+
+    /**
+     * Revokes the active generation of the family of a deactivated token. All generations of a family share
+     * {@code exp}, so the family is looked up in a single partition through the family index.
+     */
+    private static final String REVOKE_FAMILY_SQL = """
+            UPDATE tokens
+            SET is_active = FALSE
+            WHERE (family_id, exp) = (
+                SELECT family_id, exp FROM tokens
+                WHERE %s AND NOT is_active AND exp > LOCALTIMESTAMP
+            )
+              AND is_active
+            RETURNING token
+            """.formatted(TOKEN_CONDITION.formatted("reusedToken"));
+
+    /**
+     * Picks the next batch through the {@code (exp, id)} index and deletes it in the same statement. Continuing
+     * after the last deleted {@code (exp, id)} keeps every batch a short range scan of expired rows only, and
+     * {@code SKIP LOCKED} keeps the purge from waiting on rows a refresh is rotating right now. Inactive tokens are
+     * kept until they expire, as reuse detection needs the rotated generations of a family.
+     */
+    private static final String PURGE_BATCH_SQL = """
+            WITH purged AS (
+                DELETE FROM tokens
+                WHERE (id, exp) IN (
+                    SELECT id, exp FROM tokens
+                    WHERE (exp, id) > (:afterExp, :afterId) AND exp <= LOCALTIMESTAMP
+                    ORDER BY exp, id
+                    LIMIT :batchSize
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING id, exp
+            ), last AS (
+                SELECT exp, id FROM purged ORDER BY exp DESC, id DESC LIMIT 1
+            )
+            SELECT (SELECT count(*) FROM purged) AS purged,
+                   coalesce((SELECT exp FROM last), :afterExp) AS last_exp,
+                   coalesce((SELECT id FROM last), :afterId) AS last_id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Finds a token by its hash in the one partition that holds it.
+     *
+     * @param token the hash of the token
+     * @return an Optional containing the token if found
+     */
+    @Override
+    public Optional<JpaRefreshToken> findByToken(ProtectedToken token) {
+        List<?> rows = entityManager.createNativeQuery(FIND_BY_TOKEN_SQL, JpaRefreshToken.class)
+                .setParameter("token", token.toBytes())
+                .getResultList();
+        return rows.stream().map(JpaRefreshToken.class::cast).findFirst();
+    }
+
+    /**
+     * Deletes a token by its hash in the one partition that holds it, without loading it first.
+     *
+     * @param token the hash of the token
+     */
+    @Override
+    public void deleteByToken(ProtectedToken token) {
+        entityManager.createNativeQuery(DELETE_BY_TOKEN_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .setParameter("token", token.toBytes())
+                .executeUpdate();
+    }
+
+    /**
+     * Atomically replaces an active, unexpired token with the next generation of its family
+     * in a single statement, keeping its user and expiration.
+     *
+     * @param oldToken the hash of the token to replace
+     * @param newToken the hash of the replacement token
+     * @return the detached replacement token with a lazy user reference, or empty if no row matched
+     */
+    @Override
+    public Optional<JpaRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        var rows = entityManager.createNativeQuery(ROTATE_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .addScalar("user_id", Integer.class)
+                .addScalar("exp", Instant.class)
+                .addScalar("created_at", Instant.class)
+                .setParameter("newToken", newToken.toBytes())
+                .setParameter("oldToken", oldToken.toBytes())
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        var row = (Object[]) rows.getFirst();
+        var rotated = JpaRefreshToken.builder()
+                .token(newToken)
+                .isActive(true)
+                .user(entityManager.getReference(User.class, row[0]))
+                .exp((Instant) row[1])
+                .build();
+        rotated.setCreatedAt((Instant) row[2]);
+        return Optional.of(rotated);
+    }
+
+    /**
+     * Inserts the token and deletes the oldest sessions of its user with a single statement.
+     *
+     * @param token       the hash of the new token
+     * @param userId      the ID of the token owner
+     * @param expiresAt   the expiration instant of the new token
+     * @param maxSessions the maximum number of active tokens the user keeps, including the new one
+     * @return the hashes of the deleted tokens
+     */
+    @Override
+    public List<ProtectedToken> insertEvictingOldest(ProtectedToken token, Integer userId, Instant expiresAt, int maxSessions) {
+        List<?> rows = entityManager.createNativeQuery(INSERT_EVICTING_OLDEST_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .addScalar("token", byte[].class)
+                .setParameter("token", token.toBytes())
+                .setParameter("userId", userId)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("maxSessions", maxSessions)
+                .getResultList();
+        return toTokens(rows);
+    }
+
+    /**
+     * Revokes the family of a rotated token with a single statement.
+     *
+     * @param reusedToken the hash of the presented token
+     * @return the hashes of the revoked tokens, empty if the token is not a rotated generation
+     */
+    @Override
+    public List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken) {
+        List<?> rows = entityManager.createNativeQuery(REVOKE_FAMILY_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .addScalar("token", byte[].class)
+                .setParameter("reusedToken", reusedToken.toBytes())
+                .getResultList();
+        return toTokens(rows);
+    }
+
+    /**
+     * Tries to take the lock with {@code pg_try_advisory_xact_lock}.
+     *
+     * @param key the lock key
+     * @return true if the lock was taken, false if another session holds it
+     */
+    @Override
+    public boolean tryAdvisoryTransactionLock(long key) {
+        return (Boolean) entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(:key)")
+                .setParameter("key", key)
+                .getSingleResult();
+    }
+
+    /**
+     * Deletes the next batch of expired tokens with a single statement.
+     *
+     * @param afterExp  the expiration to continue after, with {@code afterId}
+     * @param afterId   the ID to continue after, exclusive
+     * @param batchSize the maximum number of rows to delete
+     * @return the number of deleted rows and the position of the last deleted one
+     */
+    @Override
+    public PurgedBatch purgeExpiredBatch(LocalDateTime afterExp, int afterId, int batchSize) {
+        var row = (Object[]) entityManager.createNativeQuery(PURGE_BATCH_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .addScalar("purged", Integer.class)
+                .addScalar("last_exp", LocalDateTime.class)
+                .addScalar("last_id", Integer.class)
+                .setParameter("afterExp", afterExp)
+                .setParameter("afterId", afterId)
+                .setParameter("batchSize", batchSize)
+                .getSingleResult();
+        return new PurgedBatch((Integer) row[0], (LocalDateTime) row[1], (Integer) row[2]);
+    }
+
+    /**
+     * Calls {@code create_token_partitions}, created by the migrations partitioning the tokens table.
+     *
+     * @param premakeDays the number of days ahead to create partitions for
+     * @return the number of created partitions
+     */
+    @Override
+    public int createPartitions(int premakeDays) {
+        return (Integer) entityManager.createNativeQuery("SELECT create_token_partitions(:premakeDays) AS created")
+                .unwrap(NativeQuery.class)
+                .addScalar("created", Integer.class)
+                .setParameter("premakeDays", premakeDays)
+                .getSingleResult();
+    }
+
+    /**
+     * Calls {@code expired_token_partitions}, created by the migrations partitioning the tokens table.
+     *
+     * @return the names of the expired partitions, oldest first
+     */
+    @Override
+    public List<String> findExpiredPartitions() {
+        List<?> rows = entityManager.createNativeQuery("SELECT partition_name FROM expired_token_partitions()")
+                .getResultList();
+        return rows.stream().map(String.class::cast).toList();
+    }
+
+    /**
+     * Sets a transaction-local {@code lock_timeout} and calls {@code drop_token_partition}.
+     *
+     * @param partitionName the name of the partition
+     * @param lockTimeout   how long to wait for the lock on the tokens table before failing
+     */
+    @Override
+    public void dropPartition(String partitionName, Duration lockTimeout) {
+        entityManager.createNativeQuery("SELECT set_config('lock_timeout', :lockTimeout, TRUE)")
+                .setParameter("lockTimeout", lockTimeout.toMillis() + "ms")
+                .getSingleResult();
+        entityManager.createNativeQuery("SELECT CAST(drop_token_partition(:partitionName) AS TEXT)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(JpaRefreshToken.class)
+                .setParameter("partitionName", partitionName)
+                .getSingleResult();
+    }
+
+    private static List<ProtectedToken> toTokens(List<?> rows) {
+        return rows.stream()
+                .map(row -> ProtectedToken.ofDigest((byte[]) row, 0))
+                .toList();
+    }
+}
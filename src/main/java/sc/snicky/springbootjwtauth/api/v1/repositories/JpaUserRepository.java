@@ -1,9 +1,15 @@
 package sc.snicky.springbootjwtauth.api.v1.repositories;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,9 +26,66 @@ public interface JpaUserRepository extends JpaRepository<User, Integer> { //todo
 
     /**
      * Find an active user by their username.
+     * The roles are fetched in the same query, as every caller turns the user into authorities.
      *
      * @param username the username to search for
      * @return an {@link Optional} containing the found user, or empty if not found
      */
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByUsernameAndIsActiveTrue(String username);
+
+    /**
+     * Find the username and roles of a user by their ID, one row per role, in a single query.
+     *
+     * @param id the ID of the user
+     * @return the rows of the user, with a {@code null} role if the user has none, or an empty list if not found
+     */
+    @Query("select u.id as id, u.username as username, r.name as role from users u left join u.roles r where u.id = :id")
+    List<UserRoleView> findUserRolesById(Integer id);
+
+    /**
+     * Find the principal of a user by their ID in a single query, without loading the user entity.
+     *
+     * @param id the ID of the user
+     * @return an {@link Optional} containing the principal, or empty if not found
+     */
+    default Optional<UserPrincipal> findPrincipalById(Integer id) {
+        var rows = findUserRolesById(id);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        int roleMask = 0;
+        for (var row : rows) {
+            if (row.getRole() != null) {
+                roleMask |= RoleAuthorities.mask(row.getRole());
+            }
+        }
+        return Optional.of(new UserPrincipal(id, rows.getFirst().getUsername(), roleMask));
+    }
+
+    /**
+     * One row of {@link #findUserRolesById(Integer)}.
+     */
+    interface UserRoleView {
+        /**
+         * Returns the ID of the user.
+         *
+         * @return the user ID
+         */
+        Integer getId();
+
+        /**
+         * Returns the username of the user.
+         *
+         * @return the username
+         */
+        String getUsername();
+
+        /**
+         * Returns one role of the user.
+         *
+         * @return the role, or {@code null} if the user has none
+         */
+        ERole getRole();
+    }
 }
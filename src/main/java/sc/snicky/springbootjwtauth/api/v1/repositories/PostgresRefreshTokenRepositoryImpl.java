@@ -5,6 +5,7 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.mappers.JpaRefreshTokenMapper;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -29,6 +30,20 @@ public class PostgresRefreshTokenRepositoryImpl implements BasicRefreshTokenRepo
         jpaRefreshTokenRepository.save(entityToken);
     }
 
+    /**
+     * Inserts the token and deletes the oldest sessions of its user in a single statement,
+     * ranking the user's active tokens with a window function instead of counting them first.
+     *
+     * @param token       the token to save
+     * @param maxSessions the maximum number of active tokens the user keeps, including the new one
+     * @return the hashes of the deleted tokens
+     */
+    @Override
+    public List<ProtectedToken> saveEvictingOldest(BasicRefreshToken token, int maxSessions) {
+        return jpaRefreshTokenRepository.insertEvictingOldest(
+                token.getToken(), token.getUser().getId(), token.getExpiresAt(), maxSessions);
+    }
+
     /**
      * Finds a token by its UUID.
      *
@@ -59,4 +74,29 @@ public class PostgresRefreshTokenRepositoryImpl implements BasicRefreshTokenRepo
     public void deleteAllByUserId(Integer userId) {
         jpaRefreshTokenRepository.deleteAllByUserId(userId);
     }
+
+    /**
+     * Atomically replaces a token with the next generation of its family, keeping its user and expiration,
+     * using a single statement instead of a select, a delete and an insert.
+     * The replaced token stays as an inactive row until it expires, for reuse detection.
+     *
+     * @param oldToken the hash of the token to replace
+     * @param newToken the hash of the replacement token
+     * @return the stored replacement token, or empty if the old token is unknown, inactive or expired
+     */
+    @Override
+    public Optional<BasicRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        return jpaRefreshTokenRepository.rotate(oldToken, newToken).map(jpaRefreshTokenMapper::toBasicRefreshToken);
+    }
+
+    /**
+     * Revokes the family of a rotated token in a single statement.
+     *
+     * @param reusedToken the hash of the presented token
+     * @return the hashes of the revoked tokens, empty if the token is not a rotated one
+     */
+    @Override
+    public List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken) {
+        return jpaRefreshTokenRepository.revokeFamilyOf(reusedToken);
+    }
 }
@@ -1,56 +1,291 @@
 package sc.snicky.springbootjwtauth.api.v1.repositories;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository implementation for storing tokens in Redis.
  * <p>
- * The actual implementation is not available yet and will be added in the future.
+ * Every token is a string key {@code refresh_token:<hash>} holding
+ * {@code <userId>:<expiresAt>:<createdAt>:<family>:<active>} (epoch milliseconds, the hash of the first token of
+ * the family, and {@code 1} or {@code 0}) that Redis expires on its own at {@code expiresAt}. Values written before
+ * families were tracked lack the last two fields and read as the active first token of their own family.
+ * A sorted set {@code refresh_tokens:user:<userId>} indexes the hashes of a user's active tokens, scored by
+ * expiration, and expires with the user's last token. A rotated token is kept, inactive and out of the index,
+ * until it expires, so that presenting it again is detected as reuse and revokes the active token of its family.
+ * Every write is a Lua script, so each operation is atomic and takes one round trip.
+ * <p>
+ * The scripts derive the index key from the stored value, so all keys must live on one node:
+ * a standalone or sentinel-managed Redis 6.2+, not a Redis Cluster.
  */
 @RequiredArgsConstructor
-public class RedisRefreshTokenRepositoryImpl implements BasicRefreshTokenRepository { //todo add implementation
+public class RedisRefreshTokenRepositoryImpl implements BasicRefreshTokenRepository {
+    private static final String TOKEN_KEY_PREFIX = "refresh_token:";
+    private static final String USER_KEY_PREFIX = "refresh_tokens:user:";
+    private static final int ACTIVE_FIELD = 4;
+
     /**
-     * Stores the given refresh token in Redis.
+     * Splits a stored value, given the hash it is stored under, into user ID, expiresAt, createdAt, family and
+     * whether the token is active.
+     */
+    private static final String PARSE_VALUE_FUNCTION = """
+            local function parse(value, hash)
+                local userId, expiresAt, createdAt, family, active =
+                    string.match(value, '^(%d+):(%d+):(%d+):([%w_%-]+):([01])$')
+                if not userId then
+                    userId, expiresAt, createdAt = string.match(value, '^(%d+):(%d+):(%d+)')
+                    family, active = hash, '1'
+                end
+                return userId, tonumber(expiresAt), tonumber(createdAt), family, active == '1'
+            end
+            """;
+
+    /**
+     * KEYS: token key, user index key. ARGV: value, expiresAt, token hash, now.
+     */
+    private static final RedisScript<Long> SAVE_SCRIPT = RedisScript.of("""
+            redis.call('SET', KEYS[1], ARGV[1], 'PXAT', ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[3])
+            local last = redis.call('ZRANGE', KEYS[2], -1, -1, 'WITHSCORES')
+            redis.call('PEXPIREAT', KEYS[2], last[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS: token key, user index key. ARGV: value, expiresAt, token hash, now, token key prefix, max sessions.
+     * Ranks the user's other tokens by creation time, newest first, and deletes those beyond one session less
+     * than the cap, before adding the new one. The index only holds the few active tokens of one user, so reading
+     * them all is cheap.
+     */
+    private static final RedisScript<List> SAVE_EVICTING_OLDEST_SCRIPT = RedisScript.of(PARSE_VALUE_FUNCTION + """
+            redis.call('SET', KEYS[1], ARGV[1], 'PXAT', ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])
+            local sessions = {}
+            for _, hash in ipairs(redis.call('ZRANGE', KEYS[2], 0, -1)) do
+                local value = redis.call('GET', ARGV[5] .. hash)
+                if value then
+                    local _, _, createdAt = parse(value, hash)
+                    sessions[#sessions + 1] = {hash, createdAt}
+                end
+            end
+            table.sort(sessions, function(a, b) return a[2] > b[2] end)
+            local evicted = {}
+            for i = tonumber(ARGV[6]), #sessions do
+                redis.call('DEL', ARGV[5] .. sessions[i][1])
+                redis.call('ZREM', KEYS[2], sessions[i][1])
+                evicted[#evicted + 1] = sessions[i][1]
+            end
+            redis.call('ZADD', KEYS[2], ARGV[2], ARGV[3])
+            local last = redis.call('ZRANGE', KEYS[2], -1, -1, 'WITHSCORES')
+            redis.call('PEXPIREAT', KEYS[2], last[2])
+            return evicted
+            """, List.class);
+
+    /**
+     * KEYS: token key. ARGV: user index key prefix, token hash.
+     */
+    private static final RedisScript<Long> DELETE_SCRIPT = RedisScript.of("""
+            local value = redis.call('GET', KEYS[1])
+            if not value then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', ARGV[1] .. string.match(value, '^(%d+):'), ARGV[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS: user index key. ARGV: token key prefix.
+     */
+    private static final RedisScript<Long> DELETE_ALL_SCRIPT = RedisScript.of("""
+            local hashes = redis.call('ZRANGE', KEYS[1], 0, -1)
+            for _, hash in ipairs(hashes) do
+                redis.call('DEL', ARGV[1] .. hash)
+            end
+            redis.call('DEL', KEYS[1])
+            return #hashes
+            """, Long.class);
+
+    /**
+     * KEYS: old token key, new token key. ARGV: user index key prefix, old hash, new hash, now.
+     */
+    private static final RedisScript<String> ROTATE_SCRIPT = RedisScript.of(PARSE_VALUE_FUNCTION + """
+            local value = redis.call('GET', KEYS[1])
+            if not value then
+                return false
+            end
+            local userId, expiresAt, createdAt, family, active = parse(value, ARGV[2])
+            if not active or expiresAt <= tonumber(ARGV[4]) then
+                return false
+            end
+            local prefix = userId .. ':' .. expiresAt .. ':'
+            local rotated = prefix .. ARGV[4] .. ':' .. family .. ':1'
+            redis.call('SET', KEYS[1], prefix .. createdAt .. ':' .. family .. ':0', 'PXAT', expiresAt)
+            redis.call('SET', KEYS[2], rotated, 'PXAT', expiresAt)
+            redis.call('ZREM', ARGV[1] .. userId, ARGV[2])
+            redis.call('ZADD', ARGV[1] .. userId, expiresAt, ARGV[3])
+            return rotated
+            """, String.class);
+
+    /**
+     * KEYS: reused token key. ARGV: user index key prefix, token key prefix, reused hash.
+     * Deletes the active tokens of the user that share the family of the reused token, if that one is inactive.
+     */
+    private static final RedisScript<List> REVOKE_FAMILY_SCRIPT = RedisScript.of(PARSE_VALUE_FUNCTION + """
+            local value = redis.call('GET', KEYS[1])
+            if not value then
+                return {}
+            end
+            local userId, _, _, family, active = parse(value, ARGV[3])
+            if active then
+                return {}
+            end
+            local revoked = {}
+            for _, hash in ipairs(redis.call('ZRANGE', ARGV[1] .. userId, 0, -1)) do
+                local member = redis.call('GET', ARGV[2] .. hash)
+                if member and select(4, parse(member, hash)) == family then
+                    redis.call('DEL', ARGV[2] .. hash)
+                    redis.call('ZREM', ARGV[1] .. userId, hash)
+                    revoked[#revoked + 1] = hash
+                end
+            end
+            return revoked
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final JpaUserRepository jpaUserRepository;
+
+    /**
+     * Stores the given refresh token in Redis, expiring at its expiration instant.
      *
      * @param token the refresh token to be stored
      */
     @Override
     public void save(BasicRefreshToken token) {
+        var hash = encode(token.getToken());
+        var value = toValue(token);
+        redisTemplate.execute(SAVE_SCRIPT,
+                List.of(TOKEN_KEY_PREFIX + hash, USER_KEY_PREFIX + token.getUser().getId()),
+                value, String.valueOf(token.getExpiresAt().toEpochMilli()), hash,
+                String.valueOf(System.currentTimeMillis()));
+    }
 
+    /**
+     * Stores the given refresh token and deletes the oldest tokens of its user beyond the given number of sessions,
+     * in one atomic script.
+     *
+     * @param token       the refresh token to be stored
+     * @param maxSessions the maximum number of tokens the user keeps, including the new one
+     * @return the hashes of the deleted tokens
+     */
+    @Override
+    public List<ProtectedToken> saveEvictingOldest(BasicRefreshToken token, int maxSessions) {
+        var hash = encode(token.getToken());
+        var value = toValue(token);
+        List<?> evicted = redisTemplate.execute(SAVE_EVICTING_OLDEST_SCRIPT,
+                List.of(TOKEN_KEY_PREFIX + hash, USER_KEY_PREFIX + token.getUser().getId()),
+                value, String.valueOf(token.getExpiresAt().toEpochMilli()), hash,
+                String.valueOf(System.currentTimeMillis()), TOKEN_KEY_PREFIX, String.valueOf(maxSessions));
+        return evicted == null ? List.of() : evicted.stream().map(evictedHash -> decode((String) evictedHash)).toList();
     }
 
     /**
-     * Retrieves a refresh token from Redis using its token string.
+     * Retrieves a refresh token from Redis using its hash, including a rotated, inactive one.
+     * The user is a lazy reference, loaded only when more than its ID is read.
      *
-     * @param token the token string to look up
+     * @param token the hash of the token to look up
      * @return an Optional containing the refresh token if found, otherwise empty
      */
     @Override
     public Optional<BasicRefreshToken> findByToken(ProtectedToken token) {
-        return Optional.empty();
+        return Optional.ofNullable(redisTemplate.opsForValue().get(TOKEN_KEY_PREFIX + encode(token)))
+                .map(value -> toBasicRefreshToken(token, value));
     }
 
     /**
-     * Removes a refresh token from Redis using its token string.
+     * Removes a refresh token and its user index entry from Redis.
      *
-     * @param token the token string of the refresh token to be removed
+     * @param token the hash of the refresh token to be removed
      */
     @Override
     public void delete(ProtectedToken token) {
-
+        var hash = encode(token);
+        redisTemplate.execute(DELETE_SCRIPT, List.of(TOKEN_KEY_PREFIX + hash), USER_KEY_PREFIX, hash);
     }
 
     /**
-     * Removes all refresh tokens associated with the specified user ID from Redis.
+     * Removes all refresh tokens associated with the specified user ID from Redis in one round trip.
      *
      * @param userId the ID of the user whose refresh tokens should be removed
      */
     @Override
     public void deleteAllByUserId(Integer userId) {
+        redisTemplate.execute(DELETE_ALL_SCRIPT, List.of(USER_KEY_PREFIX + userId), TOKEN_KEY_PREFIX);
+    }
+
+    /**
+     * Atomically replaces a token with a new one of the same family that keeps its user and expiration,
+     * in one round trip. The old token is kept, inactive, until it expires.
+     *
+     * @param oldToken the hash of the token to replace
+     * @param newToken the hash of the replacement token
+     * @return the stored replacement token, or empty if the old token is unknown, inactive or expired
+     */
+    @Override
+    public Optional<BasicRefreshToken> rotate(ProtectedToken oldToken, ProtectedToken newToken) {
+        var oldHash = encode(oldToken);
+        var newHash = encode(newToken);
+        var rotated = redisTemplate.execute(ROTATE_SCRIPT,
+                List.of(TOKEN_KEY_PREFIX + oldHash, TOKEN_KEY_PREFIX + newHash),
+                USER_KEY_PREFIX, oldHash, newHash, String.valueOf(System.currentTimeMillis()));
+        return Optional.ofNullable(rotated).map(value -> toBasicRefreshToken(newToken, value));
+    }
+
+    /**
+     * Deletes the active token of the family of a rotated token, in one round trip.
+     *
+     * @param reusedToken the hash of the presented token
+     * @return the hashes of the deleted tokens, empty if the token is unknown or still active
+     */
+    @Override
+    public List<ProtectedToken> revokeFamilyOf(ProtectedToken reusedToken) {
+        var hash = encode(reusedToken);
+        List<?> revoked = redisTemplate.execute(REVOKE_FAMILY_SCRIPT, List.of(TOKEN_KEY_PREFIX + hash),
+                USER_KEY_PREFIX, TOKEN_KEY_PREFIX, hash);
+        return revoked == null ? List.of() : revoked.stream().map(revokedHash -> decode((String) revokedHash)).toList();
+    }
+
+    private static String toValue(BasicRefreshToken token) {
+        var createdAt = token.getCreatedAt() != null ? token.getCreatedAt() : Instant.now();
+        return token.getUser().getId() + ":" + token.getExpiresAt().toEpochMilli() + ":" + createdAt.toEpochMilli()
+                + ":" + encode(token.getToken()) + ":1";
+    }
+
+    private BasicRefreshToken toBasicRefreshToken(ProtectedToken token, String value) {
+        var fields = value.split(":");
+        return BasicRefreshToken.builder()
+                .token(token)
+                .user(jpaUserRepository.getReferenceById(Integer.valueOf(fields[0])))
+                .isActive(fields.length < ACTIVE_FIELD + 1 || "1".equals(fields[ACTIVE_FIELD]))
+                .expiresAt(Instant.ofEpochMilli(Long.parseLong(fields[1])))
+                .createdAt(Instant.ofEpochMilli(Long.parseLong(fields[2])))
+                .build();
+    }
+
+    private static String encode(ProtectedToken token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toBytes());
+    }
 
+    private static ProtectedToken decode(String hash) {
+        return ProtectedToken.ofDigest(Base64.getUrlDecoder().decode(hash), 0);
     }
 }
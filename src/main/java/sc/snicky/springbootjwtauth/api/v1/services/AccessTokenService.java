@@ -2,6 +2,7 @@ package sc.snicky.springbootjwtauth.api.v1.services;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidAccessTokenException;
 
 import java.time.Instant;
@@ -57,4 +58,23 @@ public interface AccessTokenService {
      * @throws InvalidAccessTokenException if the token is malformed, expired, or has an invalid signature.
      */
     UserDetails extractUserDetails(String token);
+
+    /**
+     * Parses the JWT access token once, validating its signature and expiration,
+     * and returns every claim needed to authenticate its owner.
+     * Prefer this method over the single-claim extractors when more than one claim is needed.
+     *
+     * @param token The JWT access token.
+     * @return the verified token holding subject, roles, issued-at and expiration.
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired, or has an invalid signature.
+     */
+    VerifiedAccessToken verify(String token);
+
+    /**
+     * Returns the public keys that verify access tokens, serialized as a JSON Web Key Set (RFC 7517).
+     * Services holding this set can verify access tokens locally by the {@code kid} header.
+     *
+     * @return the JWK Set JSON; its key list is empty when tokens are signed with a shared secret.
+     */
+    String publicJwkSet();
 }
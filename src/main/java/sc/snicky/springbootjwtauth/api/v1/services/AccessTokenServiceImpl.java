@@ -1,35 +1,61 @@
 package sc.snicky.springbootjwtauth.api.v1.services;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.RequiredTypeException;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
-import sc.snicky.springbootjwtauth.api.v1.domain.models.UserDetailsAdaptor;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERolesClaimFormat;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ESigningAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.domain.events.SigningKeysRemovedEvent;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidAccessTokenException;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.JwtKeyMaterial;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.JwtKeyring;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.SigningKeys;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of AccessTokenService interface responsible for JWT token operations:
  * generating tokens, validating tokens, and extracting claims from tokens.
  */
+@Slf4j
 @Setter
 @Service
-public class AccessTokenServiceImpl implements AccessTokenService {
+public class AccessTokenServiceImpl implements AccessTokenService, ApplicationEventPublisherAware {
+    /**
+     * Claim holding the roles as a list of authorities.
+     */
+    public static final String ROLES_CLAIM = "roles";
+
+    /**
+     * Claim holding the roles as a {@link RoleAuthorities} bitmask.
+     */
+    public static final String ROLE_MASK_CLAIM = "rm";
+
     /**
      * Duration of access token in milliseconds, loaded from application properties.
      */
@@ -42,6 +68,105 @@ public class AccessTokenServiceImpl implements AccessTokenService {
     @Value("${app.auth.tokens.secret.access:default_jwt_signing_key_which_should_be_replaced}")
     private String jwtSigningKey;
 
+    /**
+     * Format of the roles claim in issued tokens, loaded from application properties.
+     * Tokens in either format are accepted on verification, which allows switching formats without a logout.
+     */
+    @Value("${app.auth.tokens.roles-claim-format:LIST}")
+    private ERolesClaimFormat rolesClaimFormat = ERolesClaimFormat.LIST;
+
+    /**
+     * Algorithm used for signing JWT tokens, loaded from application properties.
+     * With an asymmetric algorithm the public key is published and {@link #jwtSigningKey} is not used.
+     */
+    @Value("${app.auth.tokens.signing.algorithm:HMAC}")
+    private ESigningAlgorithm signingAlgorithm = ESigningAlgorithm.HMAC;
+
+    /**
+     * Path of the PKCS#8 PEM private key for asymmetric signing, loaded from application properties.
+     */
+    @Value("${app.auth.tokens.signing.private-key:}")
+    private String signingPrivateKeyPath = "";
+
+    /**
+     * Path of the X.509 PEM public key for asymmetric signing, loaded from application properties.
+     */
+    @Value("${app.auth.tokens.signing.public-key:}")
+    private String signingPublicKeyPath = "";
+
+    /**
+     * Key ID written to the {@code kid} header, loaded from application properties.
+     * When blank, the RFC 7638 thumbprint of the public key is used.
+     */
+    @Value("${app.auth.tokens.signing.key-id:}")
+    private String signingKeyId = "";
+
+    /**
+     * Path of the keyring, loaded from application properties: either a JWK Set file
+     * or a directory of {@code *.json} files holding one JWK each. When set, it replaces the signing properties above.
+     * The single key with {@code "key_ops": ["sign"]} signs new tokens, all other keys only verify them.
+     */
+    @Value("${app.auth.tokens.keyring.path:}")
+    private String keyringPath = "";
+
+    /**
+     * Keyring built from the signing properties or loaded from {@link #keyringPath}, shared by all request threads.
+     * Reloading swaps the whole keyring, so readers never see a partially updated one.
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile JwtKeyring keyring;
+
+    /**
+     * The files the current keyring was loaded from, used to skip reloading unchanged files.
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile List<String> keyringSource;
+
+    @Setter(AccessLevel.NONE)
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Builds the keys at startup, so a misconfigured secret or keyring fails fast
+     * and the first requests do not pay for the key setup.
+     */
+    @PostConstruct
+    public void initKeyMaterial() {
+        if (isKeyringConfigured()) {
+            loadKeyring();
+        } else {
+            keyring = JwtKeyring.of(buildKeyMaterial());
+        }
+    }
+
+    /**
+     * Reloads the keyring when its files have changed since the last load.
+     * A keyring that fails to load is logged and ignored, and the current keys stay in use.
+     * Publishes a {@link SigningKeysRemovedEvent} when keys have been removed.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.auth.tokens.keyring.reload-interval:30000}",
+            initialDelayString = "${app.auth.tokens.keyring.reload-interval:30000}")
+    public void reloadKeyring() {
+        if (!isKeyringConfigured()) {
+            return;
+        }
+        try {
+            loadKeyring();
+        } catch (RuntimeException e) {
+            log.error("Failed to reload access token keyring from {}, keeping the current keys", keyringPath, e);
+        }
+    }
+
+    /**
+     * Sets the publisher of the {@link SigningKeysRemovedEvent}s.
+     *
+     * @param applicationEventPublisher the application event publisher
+     */
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.eventPublisher = applicationEventPublisher;
+    }
+
     /**
      * Extracts user roles from a JWT token.
      *
@@ -50,12 +175,34 @@ public class AccessTokenServiceImpl implements AccessTokenService {
      */
     @Override
     public Set<ERole> extractRoles(String token) {
+        return verify(token).roles();
+    }
+
+    /**
+     * Parses and verifies a JWT token once and returns all claims needed to authenticate its owner.
+     *
+     * @param token The JWT token string
+     * @return The verified token with subject, roles, issue and expiration instants
+     */
+    @Override
+    public VerifiedAccessToken verify(String token) {
         var claims = extractAllClaims(token);
-        var roles = (List<String>) claims.get("roles");
-        return roles.stream()
-                .map(x -> x.replace("ROLE_", "")) // Remove "ROLE_" prefix if present
-                .map(ERole::valueOf)
-                .collect(Collectors.toSet());
+        return VerifiedAccessToken.builder()
+                .subject(claims.getSubject())
+                .roleMask(extractRoleMask(claims))
+                .issuedAt(Optional.ofNullable(claims.getIssuedAt()).map(Date::toInstant).orElse(null))
+                .expiresAt(claims.getExpiration().toInstant())
+                .build();
+    }
+
+    /**
+     * Returns the public keys verifying access tokens as a JSON Web Key Set.
+     *
+     * @return the JWK Set JSON; its key list is empty when tokens are signed with an HMAC secret
+     */
+    @Override
+    public String publicJwkSet() {
+        return keyring().publicJwkSetJson();
     }
 
     /**
@@ -66,10 +213,17 @@ public class AccessTokenServiceImpl implements AccessTokenService {
      */
     @Override
     public String generate(UserDetails userDetails) {
+        if (rolesClaimFormat == ERolesClaimFormat.MASK) {
+            int roleMask = 0;
+            for (var authority : userDetails.getAuthorities()) {
+                roleMask |= RoleAuthorities.mask(RoleAuthorities.fromAuthority(authority.getAuthority()));
+            }
+            return generateToken(Map.of(ROLE_MASK_CLAIM, roleMask), userDetails);
+        }
         var roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
-        return generateToken(Map.of("roles", roles), userDetails);
+        return generateToken(Map.of(ROLES_CLAIM, roles), userDetails);
     }
 
     /**
@@ -104,16 +258,7 @@ public class AccessTokenServiceImpl implements AccessTokenService {
      */
     @Override
     public UserDetails extractUserDetails(String token) {
-        UserDetailsAdaptor detailsAdaptor = UserDetailsAdaptor.builder()
-                .username(extractUsername(token))
-                .password("N/A") // Password is not stored in token
-                .build();
-        detailsAdaptor.setGrantedAuthorities(
-                extractRoles(token).stream()
-                .map((erole) -> new SimpleGrantedAuthority("ROLE_" + erole.name()))
-                .toList()
-        );
-        return detailsAdaptor;
+        return verify(token).toUserDetails();
     }
 
     /**
@@ -135,12 +280,12 @@ public class AccessTokenServiceImpl implements AccessTokenService {
      * @return A JWT token string
      */
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return Jwts.builder()
-                .signWith(getSigningKey())
+        var now = Instant.now();
+        return keyring().active().builder()
                 .claims(extraClaims)
                 .subject(userDetails.getUsername())
-                .issuedAt(Date.from(Instant.now()))
-                .expiration(Date.from(Instant.now().plusMillis(accessTokenDurationMs)))
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(accessTokenDurationMs)))
                 .compact();
     }
 
@@ -154,6 +299,35 @@ public class AccessTokenServiceImpl implements AccessTokenService {
         return extractExpiration(token).isBefore(Instant.now());
     }
 
+    /**
+     * Extracts user roles from already verified claims.
+     * The compact bitmask claim is read when present; otherwise the list claim is decoded,
+     * accepting both {@code ROLE_}-prefixed authorities and plain role names.
+     *
+     * @param claims The claims of a verified JWT token
+     * @return The roles of the user as a {@link RoleAuthorities} bitmask
+     * @throws InvalidAccessTokenException if the token has neither roles claim, or one of them holds an unknown role
+     */
+    private int extractRoleMask(Claims claims) {
+        try {
+            var roleMask = claims.get(ROLE_MASK_CLAIM, Integer.class);
+            if (roleMask != null) {
+                RoleAuthorities.forMask(roleMask);
+                return roleMask;
+            }
+            if (!(claims.get(ROLES_CLAIM) instanceof List<?> roles)) {
+                throw new InvalidAccessTokenException("Access token has no roles");
+            }
+            int mask = 0;
+            for (var role : roles) {
+                mask |= RoleAuthorities.mask(RoleAuthorities.fromAuthority(String.valueOf(role)));
+            }
+            return mask;
+        } catch (RequiredTypeException | IllegalArgumentException e) {
+            throw new InvalidAccessTokenException("Access token has invalid roles");
+        }
+    }
+
     /**
      * Extracts a specific claim from a JWT token using a claims resolver function.
      *
@@ -174,19 +348,112 @@ public class AccessTokenServiceImpl implements AccessTokenService {
      * @return All claims contained in the token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return keyring().parser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
     /**
-     * Gets the signing key used to verify JWT tokens.
+     * Gets the keyring used to sign and verify JWT tokens.
+     * Without a keyring path, it is rebuilt only when the signing algorithm or the HMAC secret
+     * has been replaced since the last call.
+     *
+     * @return The keyring for the current signing properties
+     */
+    private JwtKeyring keyring() {
+        var current = keyring;
+        if (isKeyringConfigured()) {
+            if (current == null) {
+                loadKeyring();
+                current = keyring;
+            }
+            return current;
+        }
+        var active = current == null ? null : current.active();
+        if (active == null || active.algorithm() != signingAlgorithm
+                || signingAlgorithm == ESigningAlgorithm.HMAC && !active.isDerivedFrom(jwtSigningKey)) {
+            current = JwtKeyring.of(buildKeyMaterial());
+            keyring = current;
+        }
+        return current;
+    }
+
+    private boolean isKeyringConfigured() {
+        return keyringPath != null && !keyringPath.isBlank();
+    }
+
+    /**
+     * Loads the keyring from {@link #keyringPath} unless its files are unchanged, and swaps it in.
+     *
+     * @throws IllegalArgumentException if the keyring is invalid
+     * @throws UncheckedIOException     if the keyring files cannot be read
+     */
+    private synchronized void loadKeyring() {
+        var path = Path.of(keyringPath);
+        var source = readKeyringSource(path);
+        if (source.equals(keyringSource)) {
+            return;
+        }
+        var loaded = Files.isDirectory(path) ? JwtKeyring.parse(source) : JwtKeyring.parse(source.get(0));
+        var previous = keyring;
+        keyring = loaded;
+        keyringSource = source;
+        log.info("Loaded access token keyring from {}: active key {}, keys {}",
+                path, loaded.active().keyId().orElseThrow(), loaded.keyIds());
+        if (previous != null && eventPublisher != null) {
+            var removed = new HashSet<>(previous.keyIds());
+            removed.removeAll(loaded.keyIds());
+            if (!removed.isEmpty()) {
+                eventPublisher.publishEvent(new SigningKeysRemovedEvent(Set.copyOf(removed)));
+            }
+        }
+    }
+
+    /**
+     * Reads the keyring files: the single JWK Set file, or every {@code *.json} file of the directory in name order.
+     *
+     * @param path The keyring file or directory
+     * @return The contents of the keyring files
+     */
+    private static List<String> readKeyringSource(Path path) {
+        try {
+            if (!Files.isDirectory(path)) {
+                return List.of(Files.readString(path));
+            }
+            try (var files = Files.list(path)) {
+                var jsonFiles = files
+                        .filter(file -> file.getFileName().toString().endsWith(".json") && Files.isRegularFile(file))
+                        .sorted()
+                        .toList();
+                var contents = new ArrayList<String>(jsonFiles.size());
+                for (var file : jsonFiles) {
+                    contents.add(Files.readString(file));
+                }
+                return contents;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read access token keyring " + path, e);
+        }
+    }
+
+    /**
+     * Builds the key material for the configured signing algorithm.
+     * An asymmetric algorithm without configured key files gets an ephemeral key pair,
+     * which is fine for development but invalidates every issued token on restart.
      *
-     * @return The SecretKey object used for signing
+     * @return The new key material
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSigningKey.getBytes(StandardCharsets.UTF_8));
+    private JwtKeyMaterial buildKeyMaterial() {
+        if (signingAlgorithm == ESigningAlgorithm.HMAC) {
+            return JwtKeyMaterial.ofSecret(jwtSigningKey);
+        }
+        var keyId = signingKeyId == null || signingKeyId.isBlank() ? null : signingKeyId;
+        if (signingPrivateKeyPath == null || signingPrivateKeyPath.isBlank()
+                || signingPublicKeyPath == null || signingPublicKeyPath.isBlank()) {
+            log.warn("No {} signing key pair configured, generating an ephemeral one", signingAlgorithm);
+            return JwtKeyMaterial.ofKeyPair(signingAlgorithm, SigningKeys.generate(signingAlgorithm), keyId);
+        }
+        var keyPair = SigningKeys.read(signingAlgorithm, Path.of(signingPrivateKeyPath), Path.of(signingPublicKeyPath));
+        return JwtKeyMaterial.ofKeyPair(signingAlgorithm, keyPair, keyId);
     }
 }
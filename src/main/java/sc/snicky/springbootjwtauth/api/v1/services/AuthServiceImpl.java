@@ -1,27 +1,54 @@
 package sc.snicky.springbootjwtauth.api.v1.services;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
-import sc.snicky.springbootjwtauth.api.v1.domain.models.UserDetailsAdaptor;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.dtos.TokenPair;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.PasswordHashingOverloadedException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.PasswordOrUsernameIsInvalidException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserAlreadyExistException;
-import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final UserService userService;
     private final TokensManager tokensManager;
     private final RefreshTokenService refreshTokenService;
     private final AccessTokenService accessTokenService;
+    /**
+     * A hash of a random password made with the configured encoder. Verifying a password of an unknown username
+     * against it takes as long as verifying a real one, so the response time does not reveal whether
+     * the username exists. It is made at startup, so the first unknown username is no slower than the next ones.
+     */
+    private final String dummyPasswordHash;
+
+    /**
+     * Creates the service and hashes the dummy password with the configured encoder.
+     *
+     * @param encoder       the encoder of user passwords
+     * @param users         the user service
+     * @param manager       the manager issuing and refreshing token pairs
+     * @param refreshTokens the refresh token service
+     * @param accessTokens  the access token service
+     */
+    public AuthServiceImpl(PasswordEncoder encoder,
+                           UserService users,
+                           TokensManager manager,
+                           RefreshTokenService refreshTokens,
+                           AccessTokenService accessTokens) {
+        this.passwordEncoder = encoder;
+        this.userService = users;
+        this.tokensManager = manager;
+        this.refreshTokenService = refreshTokens;
+        this.accessTokenService = accessTokens;
+        this.dummyPasswordHash = encoder.encode(TokenUtils.generateToken());
+    }
 
     /**
      * Registers a new user with the provided username and password.
@@ -42,7 +69,7 @@ public class AuthServiceImpl implements AuthService {
                 .build();
         userService.saveUser(user, ERole.USER);
         log.debug("User with username {} registered successfully, user id: {}", username, user.getId());
-        return buildTokenPairForUser(user); // todo change on getReferenceById
+        return buildTokenPairForUser(user);
     }
 
     /**
@@ -58,18 +85,19 @@ public class AuthServiceImpl implements AuthService {
     @Override
     @Transactional
     public TokenPair login(String username, String password) {
-        try {
-            var user = userService.getUserByUsername(username);
-            if (!passwordEncoder.matches(password, user.getPassword())) {
-                log.debug("Invalid password for user with username {}", username);
-                throw new PasswordOrUsernameIsInvalidException("Password or username is invalid");
-            }
-            log.debug("User with username {} logged in successfully", username);
-            return buildTokenPairForUser(user);
-        } catch (UserNotFoundException e) {
+        var user = userService.findActiveUserByUsername(username).orElse(null);
+        if (user == null) {
+            passwordEncoder.matches(password, dummyPasswordHash);
             log.debug("Attempt to login with non-existent username {}", username);
             throw new PasswordOrUsernameIsInvalidException("Password or username is invalid");
         }
+        if (!passwordEncoder.matches(password, user.getPassword())) {
+            log.debug("Invalid password for user with username {}", username);
+            throw new PasswordOrUsernameIsInvalidException("Password or username is invalid");
+        }
+        upgradePasswordHash(user, password);
+        log.debug("User with username {} logged in successfully", username);
+        return buildTokenPairForUser(user);
     }
 
     /**
@@ -93,9 +121,36 @@ public class AuthServiceImpl implements AuthService {
         refreshTokenService.revoke(refreshToken);
     }
 
+    /**
+     * Re-hashes the password of a user whose stored hash was made with another algorithm or cost than configured.
+     * The upgrade is skipped when the hashing pool is full, and retried on a later login.
+     *
+     * @param user     the authenticated user
+     * @param password the verified raw password
+     */
+    private void upgradePasswordHash(User user, String password) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordEncoder.encode(password));
+            userService.saveUser(user);
+            log.debug("Password hash of user with username {} upgraded", user.getUsername());
+        } catch (PasswordHashingOverloadedException e) {
+            log.debug("Password hash upgrade of user with username {} postponed, hashing pool is full", user.getUsername());
+        }
+    }
+
+    /**
+     * Issues tokens for a user that is already loaded with its roles, without querying the user again.
+     *
+     * @param user the user with its roles
+     * @return a {@link TokenPair} containing the access and refresh tokens
+     */
     private TokenPair buildTokenPairForUser(User user) {
-        var refreshToken = refreshTokenService.generate(user.getId());
-        var accessToken = accessTokenService.generate(UserDetailsAdaptor.ofUser(refreshToken.getUser()));
+        var principal = UserPrincipal.ofUser(user);
+        var refreshToken = refreshTokenService.generate(principal);
+        var accessToken = accessTokenService.generate(principal.toUserDetails());
         return TokensManagerImpl.buildTokenPair(accessToken, refreshToken);
     }
 }
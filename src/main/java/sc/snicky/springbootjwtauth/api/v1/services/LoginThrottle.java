@@ -0,0 +1,100 @@
+package sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import sc.snicky.springbootjwtauth.api.v1.configs.properties.LoginRateLimitProperties;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.LoginRateLimitExceededException;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.ClientIpResolver;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.StripedRateLimiter;
+
+import java.time.Duration;
+
+/**
+ * Rate limits login attempts per username and per client IP, in memory, before any database or hashing work.
+ * <p>
+ * The username limit slows down guessing the password of one account from many addresses; the IP limit slows down
+ * one address trying many accounts. The client IP is resolved behind the trusted proxies, so clients behind
+ * the load balancer do not share one limit. An attempt takes a permit of both, and is rejected with a
+ * {@link LoginRateLimitExceededException} when either is exhausted. Rejections are counted by the
+ * {@code login_throttle.rejected} counter, tagged with the exhausted limit. Limits are per node.
+ */
+@Slf4j
+@Service
+public class LoginThrottle {
+    private final boolean enabled;
+    private final StripedRateLimiter usernameLimiter;
+    private final StripedRateLimiter ipLimiter;
+    private final ClientIpResolver clientIpResolver;
+    private final Counter usernameRejectedCounter;
+    private final Counter ipRejectedCounter;
+
+    /**
+     * Creates the throttle.
+     *
+     * @param properties            the rate limit settings
+     * @param meterRegistryProvider the registry the metrics are published to, if any
+     */
+    public LoginThrottle(LoginRateLimitProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.enabled = properties.enabled();
+        this.usernameLimiter = new StripedRateLimiter(properties.usernameCapacity(), properties.usernameRefillPeriod(),
+                properties.maxKeys(), properties.stripes(), System::nanoTime);
+        this.ipLimiter = new StripedRateLimiter(properties.ipCapacity(), properties.ipRefillPeriod(),
+                properties.maxKeys(), properties.stripes(), System::nanoTime);
+        this.clientIpResolver = new ClientIpResolver(properties.trustedProxies());
+        var registry = meterRegistryProvider.getIfAvailable(CompositeMeterRegistry::new);
+        this.usernameRejectedCounter = Counter.builder("login_throttle.rejected")
+                .description("Login attempts rejected by the rate limit")
+                .tag("limit", "username")
+                .register(registry);
+        this.ipRejectedCounter = Counter.builder("login_throttle.rejected")
+                .description("Login attempts rejected by the rate limit")
+                .tag("limit", "ip")
+                .register(registry);
+    }
+
+    /**
+     * Takes a login attempt of the username and of the IP of the client that sent the request,
+     * resolved behind the trusted proxies.
+     *
+     * @param username the username the client tries to log in as
+     * @param request  the login request
+     * @throws LoginRateLimitExceededException if either limit is exhausted
+     */
+    public void checkLoginAttempt(String username, HttpServletRequest request) {
+        checkLoginAttempt(username, clientIpResolver.resolve(request));
+    }
+
+    /**
+     * Takes a login attempt of the username and of the client IP.
+     *
+     * @param username the username the client tries to log in as
+     * @param clientIp the IP address of the client
+     * @throws LoginRateLimitExceededException if either limit is exhausted
+     */
+    public void checkLoginAttempt(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        var ipWait = ipLimiter.tryAcquire(clientIp);
+        if (ipWait > 0) {
+            ipRejectedCounter.increment();
+            log.debug("Login attempt from {} rejected by the IP rate limit", clientIp);
+            throw rejected(ipWait);
+        }
+        var usernameWait = usernameLimiter.tryAcquire(username);
+        if (usernameWait > 0) {
+            usernameRejectedCounter.increment();
+            log.debug("Login attempt as {} from {} rejected by the username rate limit", username, clientIp);
+            throw rejected(usernameWait);
+        }
+    }
+
+    private static LoginRateLimitExceededException rejected(long waitNanos) {
+        return new LoginRateLimitExceededException("Too many login attempts, try again later", Duration.ofNanos(waitNanos));
+    }
+}
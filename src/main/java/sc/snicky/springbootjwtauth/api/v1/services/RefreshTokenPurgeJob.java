@@ -0,0 +1,143 @@
+package sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepositoryCustom.PurgedBatch;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background job deleting expired refresh tokens from PostgreSQL.
+ * <p>
+ * Rows are deleted in bounded batches walking the {@code (exp, id)} index, each batch in its own short transaction,
+ * with a pause in between to limit the load on the database. Every batch first takes a transaction-scoped
+ * advisory lock, so only one node deletes at a time, and a node that finds the lock taken ends its run.
+ * The lock is released between batches, so a run starting on another node during a pause takes over and the
+ * first node stops at its next batch; two nodes never delete concurrently, but one run may be finished by another.
+ * The number of purged rows and the time spent are published as the {@code refresh_tokens.purged} counter and
+ * the {@code refresh_tokens.purge} timer.
+ * <p>
+ * Whole days of expired tokens are dropped with their partitions by {@link TokenPartitionMaintenanceJob};
+ * this job removes the tokens that expired since the last partition was dropped. Inactive tokens are kept
+ * until they expire, as reuse detection needs the rotated generations of a token family.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${app.auth.tokens.refresh.db:}' == 'postgres' and ${app.auth.tokens.refresh.purge.enabled:true}")
+public class RefreshTokenPurgeJob {
+    /**
+     * The advisory lock key shared by every node purging the same database.
+     */
+    public static final long PURGE_LOCK_KEY = 0x7265_6672_6573_6801L;
+
+    /**
+     * The position every run starts after, earlier than any token expiration.
+     */
+    private static final LocalDateTime PURGE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final JpaRefreshTokenRepository jpaRefreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final int maxBatches;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+
+    /**
+     * Creates the job.
+     *
+     * @param refreshTokenRepository the repository deleting the tokens
+     * @param transactionManager     the transaction manager running every batch in its own transaction
+     * @param rowsPerBatch           the maximum number of rows deleted per batch
+     * @param pauseMs                the pause between two batches in milliseconds
+     * @param batchesPerRun          the maximum number of batches per run
+     * @param meterRegistryProvider  the registry the metrics are published to, if any
+     */
+    public RefreshTokenPurgeJob(JpaRefreshTokenRepository refreshTokenRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.auth.tokens.refresh.purge.batch-size:1000}") int rowsPerBatch,
+                                @Value("${app.auth.tokens.refresh.purge.batch-pause:100}") long pauseMs,
+                                @Value("${app.auth.tokens.refresh.purge.max-batches:1000}") int batchesPerRun,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.jpaRefreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = rowsPerBatch;
+        this.batchPauseMs = pauseMs;
+        this.maxBatches = batchesPerRun;
+        var registry = meterRegistryProvider.getIfAvailable(CompositeMeterRegistry::new);
+        this.purgedCounter = Counter.builder("refresh_tokens.purged")
+                .description("Expired refresh tokens deleted by the purge job")
+                .register(registry);
+        this.purgeTimer = Timer.builder("refresh_tokens.purge")
+                .description("Time spent purging expired refresh tokens")
+                .register(registry);
+    }
+
+    /**
+     * Runs the purge on the configured schedule.
+     */
+    @Scheduled(cron = "${app.auth.tokens.refresh.purge.cron:0 */10 * * * *}")
+    public void purgeOnSchedule() {
+        purgeTimer.record(this::purge);
+    }
+
+    /**
+     * Deletes expired tokens batch by batch, until a batch is not full,
+     * another node holds the purge lock, or the batch limit of a run is reached.
+     *
+     * @return the number of deleted tokens
+     */
+    public int purge() {
+        int purged = 0;
+        var lastExp = PURGE_START;
+        int lastId = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            var result = purgeBatch(lastExp, lastId);
+            if (result == null) {
+                log.debug("Refresh token purge is running on another node");
+                break;
+            }
+            purged += result.count();
+            purgedCounter.increment(result.count());
+            lastExp = result.lastExp();
+            lastId = result.lastId();
+            if (result.count() < batchSize || !pause()) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+        return purged;
+    }
+
+    private PurgedBatch purgeBatch(LocalDateTime afterExp, int afterId) {
+        return transactionTemplate.execute(status -> jpaRefreshTokenRepository.tryAdvisoryTransactionLock(PURGE_LOCK_KEY)
+                ? jpaRefreshTokenRepository.purgeExpiredBatch(afterExp, afterId, batchSize)
+                : null);
+    }
+
+    private boolean pause() {
+        if (batchPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
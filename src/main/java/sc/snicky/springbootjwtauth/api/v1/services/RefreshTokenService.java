@@ -2,6 +2,7 @@ package sc.snicky.springbootjwtauth.api.v1.services;
 
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetails;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 
 import java.util.Optional;
 
@@ -22,6 +23,14 @@ public interface RefreshTokenService {
      */
     RefreshTokenDetails generate(User user);
 
+    /**
+     * Generates a new refresh token for the specified user without loading the user.
+     *
+     * @param principal the {@link UserPrincipal} of the user
+     * @return the generated {@link RefreshTokenDetails}
+     */
+    RefreshTokenDetails generate(UserPrincipal principal);
+
     /**
      * Rotates (replaces) the old refresh token with a new one.
      *
@@ -10,12 +10,13 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetails;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetailsAdaptor;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.NonProtectedToken;
-import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
 import sc.snicky.springbootjwtauth.api.v1.repositories.BasicRefreshTokenRepository;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
 import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
 
 import java.time.Instant;
@@ -29,6 +30,8 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     private final BasicRefreshTokenRepository basicRefreshTokenRepository;
     @Value("${app.auth.tokens.expiration.refresh:604800000}")
     private Long refreshTokenDurationMs;
+    @Value("${app.auth.tokens.refresh.max-sessions-per-user:0}")
+    private int maxSessionsPerUser;
 
     private final JpaUserRepository jpaUserRepository;
 
@@ -53,7 +56,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     public RefreshTokenDetails generate(User user) {
         var token = TokenUtils.generateToken();
         var refreshToken = buildToken(token, user);
-        basicRefreshTokenRepository.save(refreshToken);
+        store(refreshToken);
         return RefreshTokenDetailsAdaptor.builder()
                 .token(new NonProtectedToken(token))
                 .user(user)
@@ -61,6 +64,18 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
                 .build();
     }
 
+    /**
+     * Generates a new refresh token for the user of the specified principal.
+     * The token references the user by a lazy reference, so no query loads the user.
+     *
+     * @param principal the principal of the user
+     * @return the generated refresh token details
+     */
+    @Override
+    public RefreshTokenDetails generate(UserPrincipal principal) {
+        return generate(jpaUserRepository.getReferenceById(principal.id()));
+    }
+
     /**
      * Generates a new refresh token for the specified user with a custom expiration.
      *
@@ -72,7 +87,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
         var token = TokenUtils.generateToken();
         var refreshToken = buildToken(token, user);
         refreshToken.setExpiresAt(expiration);
-        basicRefreshTokenRepository.save(refreshToken);
+        store(refreshToken);
         return RefreshTokenDetailsAdaptor.builder()
                 .token(new NonProtectedToken(token))
                 .user(user)
@@ -82,25 +97,38 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     /**
      * Rotates (replaces) the specified refresh token with a new one.
+     * The replacement keeps the user and the expiration of the old token,
+     * and the storage swaps both in a single atomic operation.
+     * If the old token was already rotated, it was presented twice, so its whole family is revoked;
+     * the revocation is committed even though the rotation fails.
      *
      * @param oldToken the String of the old refresh token
      * @return the new refresh token details
-     * @throws InvalidRefreshTokenException if the old token is not found or invalid
+     * @throws InvalidRefreshTokenException if the old token is not found, inactive or expired
      */
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
     public RefreshTokenDetails rotate(String oldToken) {
-        return findToken(oldToken)
-                .map(t -> {
-                    if (t.getExpiresAt().isBefore(Instant.now())) {
-                        log.error("Refresh token {} has expired and cannot be rotated", TokenUtils.hashToken(oldToken));
-                        throw new InvalidRefreshTokenException("Refresh token has expired");
-                    }
-                    revoke(oldToken);
-                    return generate(t.getUser(), t.getExpiresAt());
-                })
+        var token = TokenUtils.generateToken();
+        var oldHash = TokenHasher.hash(oldToken);
+        return basicRefreshTokenRepository.rotate(oldHash, TokenHasher.hash(token))
+                .map(rotated -> RefreshTokenDetailsAdaptor.builder()
+                        .token(new NonProtectedToken(token))
+                        .user(rotated.getUser())
+                        .expiry(rotated.getExpiresAt())
+                        .createdAt(rotated.getCreatedAt())
+                        .build())
                 .orElseThrow(() -> {
-                    log.error("Refresh token {} not found for rotation", TokenUtils.hashToken(oldToken));
+                    var revoked = basicRefreshTokenRepository.revokeFamilyOf(oldHash);
+                    if (revoked.isEmpty()) {
+                        log.debug("Refresh token not found, inactive or expired for rotation");
+                    } else {
+                        log.warn("Refresh token of user {} was reused, revoked {} tokens of its family",
+                                basicRefreshTokenRepository.findByToken(oldHash)
+                                        .map(reused -> reused.getUser().getId())
+                                        .orElse(null),
+                                revoked.size());
+                    }
                     return new InvalidRefreshTokenException("Refresh token is not valid");
                 });
     }
@@ -156,7 +184,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     @Override
     @Transactional
     public void revoke(String token) {
-        basicRefreshTokenRepository.delete(new ProtectedToken(TokenUtils.hashToken(token)));
+        basicRefreshTokenRepository.delete(TokenHasher.hash(token));
     }
 
     /**
@@ -168,12 +196,29 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
      */
     private BasicRefreshToken buildToken(String token, User user) {
         return BasicRefreshToken.builder()
-                .token(new ProtectedToken(TokenUtils.hashToken(token)))
+                .token(TokenHasher.hash(token))
                 .user(user)
                 .expiresAt(Instant.now().plusMillis(refreshTokenDurationMs))
                 .build();
     }
 
+    /**
+     * Saves a new token. With a session cap, the oldest sessions of the user beyond it are evicted
+     * in the same write, so logging in costs no additional round trip.
+     *
+     * @param refreshToken the token to save
+     */
+    private void store(BasicRefreshToken refreshToken) {
+        if (maxSessionsPerUser <= 0) {
+            basicRefreshTokenRepository.save(refreshToken);
+            return;
+        }
+        var evicted = basicRefreshTokenRepository.saveEvictingOldest(refreshToken, maxSessionsPerUser);
+        if (!evicted.isEmpty()) {
+            log.debug("Evicted {} oldest sessions of user {}", evicted.size(), refreshToken.getUser().getId());
+        }
+    }
+
     private User getUser(Integer userId) {
         return jpaUserRepository.findById(userId).orElseThrow(
                 () -> {
@@ -184,7 +229,7 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
     }
 
     private Optional<BasicRefreshToken> findToken(String token) {
-        return basicRefreshTokenRepository.findByToken(new ProtectedToken(TokenUtils.hashToken(token)))
+        return basicRefreshTokenRepository.findByToken(TokenHasher.hash(token))
                 .filter(BasicRefreshToken::getIsActive);
     }
 
@@ -0,0 +1,124 @@
+package sc.snicky.springbootjwtauth.api.v1.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepositoryCustom.PartitionChanges;
+
+import java.time.Duration;
+
+/**
+ * Background job maintaining the daily partitions of the PostgreSQL tokens table.
+ * <p>
+ * Partitions are pre-created for the whole refresh token lifetime plus a margin, so new tokens never land in the
+ * default partition, and partitions whose day has passed are dropped at once instead of deleting their rows.
+ * The job runs at startup and on the configured schedule. Every step is a transaction under a transaction-scoped
+ * advisory lock, so that only one node changes the partitions at a time.
+ * <p>
+ * Dropping a partition locks the whole tokens table. Each partition is dropped in its own transaction, which
+ * holds the lock only for the catalog change, and gives up after the configured lock timeout rather than keep
+ * logins and refreshes waiting behind it; a partition that could not be dropped is dropped on a later run.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("'${app.auth.tokens.refresh.db:}' == 'postgres' and ${app.auth.tokens.refresh.partitions.enabled:true}")
+public class TokenPartitionMaintenanceJob {
+    /**
+     * The advisory lock key shared by every node maintaining the same database.
+     */
+    public static final long MAINTENANCE_LOCK_KEY = 0x7265_6672_6573_6802L;
+
+    /**
+     * Days pre-created beyond the refresh token lifetime, so a missed run does not push tokens into the default partition.
+     */
+    private static final int PREMAKE_MARGIN_DAYS = 3;
+
+    private final JpaRefreshTokenRepository jpaRefreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int premakeDays;
+    private final Duration dropLockTimeout;
+
+    /**
+     * Creates the job.
+     *
+     * @param refreshTokenRepository the repository maintaining the partitions
+     * @param transactionManager     the transaction manager running the maintenance
+     * @param refreshTokenDurationMs the refresh token lifetime in milliseconds
+     * @param dropLockTimeoutMs      how long dropping a partition waits for the lock on the tokens table, in milliseconds
+     */
+    public TokenPartitionMaintenanceJob(JpaRefreshTokenRepository refreshTokenRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.auth.tokens.expiration.refresh:604800000}") long refreshTokenDurationMs,
+                                        @Value("${app.auth.tokens.refresh.partitions.drop-lock-timeout:1000}") long dropLockTimeoutMs) {
+        this.jpaRefreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.premakeDays = Math.toIntExact(Math.ceilDiv(refreshTokenDurationMs, Duration.ofDays(1).toMillis())) + PREMAKE_MARGIN_DAYS;
+        this.dropLockTimeout = Duration.ofMillis(dropLockTimeoutMs);
+    }
+
+    /**
+     * Makes sure the partitions exist as soon as the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    /**
+     * Runs the maintenance on the configured schedule.
+     */
+    @Scheduled(cron = "${app.auth.tokens.refresh.partitions.cron:0 5 * * * *}")
+    public void maintainOnSchedule() {
+        maintain();
+    }
+
+    /**
+     * Creates the missing partitions and drops the expired ones, unless another node is doing it right now.
+     *
+     * @return the changes made, or {@code null} if another node holds the maintenance lock
+     */
+    public PartitionChanges maintain() {
+        var created = transactionTemplate.execute(status ->
+                jpaRefreshTokenRepository.tryAdvisoryTransactionLock(MAINTENANCE_LOCK_KEY)
+                        ? jpaRefreshTokenRepository.createPartitions(premakeDays)
+                        : null);
+        if (created == null) {
+            log.debug("Token partition maintenance is running on another node");
+            return null;
+        }
+        int dropped = 0;
+        for (var partition : jpaRefreshTokenRepository.findExpiredPartitions()) {
+            if (!dropPartition(partition)) {
+                break;
+            }
+            dropped++;
+        }
+        if (created > 0 || dropped > 0) {
+            log.info("Created {} and dropped {} token partitions", created, dropped);
+        }
+        return new PartitionChanges(created, dropped);
+    }
+
+    private boolean dropPartition(String partition) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (!jpaRefreshTokenRepository.tryAdvisoryTransactionLock(MAINTENANCE_LOCK_KEY)) {
+                    return false;
+                }
+                jpaRefreshTokenRepository.dropPartition(partition, dropLockTimeout);
+                return true;
+            }));
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("Token partition {} is busy, dropping it on a later run", partition);
+            return false;
+        }
+    }
+}
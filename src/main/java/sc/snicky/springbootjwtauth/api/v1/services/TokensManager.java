@@ -1,5 +1,6 @@
 package sc.snicky.springbootjwtauth.api.v1.services;
 
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.dtos.TokenPair;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
@@ -14,6 +15,16 @@ public interface TokensManager {
      * @throws UserNotFoundException if the user with the given ID does not exist.
      */
     TokenPair generateTokens(Integer userId);
+
+    /**
+     * Generates a new pair of tokens for a user whose principal is already known.
+     * The refresh token is persisted; the user is not loaded.
+     *
+     * @param principal The principal of the user.
+     * @return A new TokenPair.
+     */
+    TokenPair generateTokens(UserPrincipal principal);
+
     /**
      * Generates a new TokenPair using a valid refresh token.
      * This method implements token rotation: the provided refresh token is immediately
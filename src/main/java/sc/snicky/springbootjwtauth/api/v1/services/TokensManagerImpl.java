@@ -5,7 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetails;
-import sc.snicky.springbootjwtauth.api.v1.domain.models.UserDetailsAdaptor;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.dtos.TokenPair;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
 
@@ -15,6 +15,7 @@ import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRe
 public class TokensManagerImpl implements TokensManager {
     private final RefreshTokenService refreshTokenService;
     private final AccessTokenService accessTokenService;
+    private final UserService userService;
 
     /**
      * Generates a new pair of access and refresh tokens for the specified user.
@@ -24,24 +25,36 @@ public class TokensManagerImpl implements TokensManager {
      */
     @Override
     public TokenPair generateTokens(Integer userId) {
-        var refreshToken = refreshTokenService.generate(userId);
-        var accessToken = accessTokenService.generate(UserDetailsAdaptor.ofUser(refreshToken.getUser()));
+        return generateTokens(userService.getPrincipalById(userId));
+    }
+
+    /**
+     * Generates a new pair of access and refresh tokens for the user of the specified principal.
+     *
+     * @param principal the principal of the user
+     * @return a {@link TokenPair} containing the access and refresh tokens
+     */
+    @Override
+    public TokenPair generateTokens(UserPrincipal principal) {
+        var refreshToken = refreshTokenService.generate(principal);
+        var accessToken = accessTokenService.generate(principal.toUserDetails());
         return buildTokenPair(accessToken, refreshToken);
     }
 
     /**
      * Refreshes the access and refresh tokens using the provided refresh token.
+     * The rotated token only references its user, whose username and roles are then read in one query.
      *
      * @param refreshToken the refresh token as a string
      * @return a new {@link TokenPair} containing refreshed tokens
      * @throws InvalidRefreshTokenException if the token format is invalid
      */
     @Override
-    @Transactional
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
     public TokenPair refreshTokens(String refreshToken) {
         var newRefreshToken = refreshTokenService.rotate(refreshToken);
-        var accessToken = accessTokenService.generate(
-                UserDetailsAdaptor.ofUser(newRefreshToken.getUser()));
+        var principal = userService.getPrincipalById(newRefreshToken.getUser().getId());
+        var accessToken = accessTokenService.generate(principal.toUserDetails());
         return buildTokenPair(accessToken, newRefreshToken);
     }
 
@@ -0,0 +1,101 @@
+package sc.snicky.springbootjwtauth.api.v1.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of usernames that have no active user, placed in front of the user lookup on login.
+ * <p>
+ * Logins with unknown usernames, typically credential stuffing, then cost no query. Creating a user or renaming
+ * one to a cached username invalidates it right away and once more when the surrounding transaction completes,
+ * so a concurrent login cannot cache the miss again before the user is visible. Other nodes only see a new
+ * username when their entry expires after {@code ttl}, which bounds how long a new user may be rejected there.
+ * Hit, miss and eviction counters are published as {@code cache.*} meters tagged with {@code cache=unknown_usernames}.
+ */
+@Slf4j
+@Service
+public class UnknownUsernameCache {
+    private static final String CACHE_NAME = "unknown_usernames";
+
+    /**
+     * The underlying cache, or {@code null} when caching is switched off.
+     */
+    private final Cache<String, Boolean> cache;
+
+    /**
+     * Creates the cache.
+     *
+     * @param enabled               whether unknown usernames are cached at all
+     * @param maxSize               the maximum number of cached usernames
+     * @param ttlMs                 the time an unknown username is cached, in milliseconds
+     * @param meterRegistryProvider the registry the cache statistics are published to, if any
+     */
+    public UnknownUsernameCache(@Value("${app.auth.unknown-username-cache.enabled:true}") boolean enabled,
+                                @Value("${app.auth.unknown-username-cache.max-size:10000}") long maxSize,
+                                @Value("${app.auth.unknown-username-cache.ttl:30000}") long ttlMs,
+                                ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        if (!enabled) {
+            log.info("Unknown username cache is disabled");
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        meterRegistryProvider.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+        log.info("Unknown username cache is enabled, max size: {}", maxSize);
+    }
+
+    /**
+     * Checks whether the username is known to have no active user.
+     *
+     * @param username the username
+     * @return {@code true} if a lookup of the username recently found no active user
+     */
+    public boolean isUnknown(String username) {
+        return cache != null && cache.getIfPresent(username) != null;
+    }
+
+    /**
+     * Records that the username has no active user.
+     *
+     * @param username the username
+     */
+    public void recordUnknown(String username) {
+        if (cache != null) {
+            cache.put(username, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Forgets the username now and again when the surrounding transaction completes.
+     *
+     * @param username the username of a created or renamed user
+     */
+    public void invalidate(String username) {
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+}
@@ -7,18 +7,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.roles.RoleNotFoundException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserAlreadyExistException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRoleRepository;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
 
+import java.util.Optional;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final JpaUserRepository jpaUserRepository;
     private final JpaRoleRepository jpaRoleRepository;
+    private final UnknownUsernameCache unknownUsernameCache;
 
     /**
      * Retrieves a user by their username address.
@@ -28,10 +32,27 @@ public class UserService {
      * @throws UserNotFoundException if no user with the given username is found or the user is not active
      */
     public User getUserByUsername(String username) {
-        return jpaUserRepository.findByUsernameAndIsActiveTrue(username)
+        return findActiveUserByUsername(username)
                 .orElseThrow(() -> new UserNotFoundException("User with username " + username + " not found"));
     }
 
+    /**
+     * Finds an active user by username, without querying for usernames recently found to have no active user.
+     *
+     * @param username the username to search for; must not be {@code null}
+     * @return the active {@link User} with the given username, or empty if there is none
+     */
+    public Optional<User> findActiveUserByUsername(String username) {
+        if (unknownUsernameCache.isUnknown(username)) {
+            return Optional.empty();
+        }
+        var user = jpaUserRepository.findByUsernameAndIsActiveTrue(username);
+        if (user.isEmpty()) {
+            unknownUsernameCache.recordUnknown(username);
+        }
+        return user;
+    }
+
     /**
      * Retrieves a user by their unique identifier.
      *
@@ -45,6 +66,19 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException("User with id " + id + " not found"));
     }
 
+    /**
+     * Retrieves the principal of a user, with its roles, in a single query and without loading the user entity.
+     *
+     * @param id the unique identifier of the user; must not be {@code null}
+     * @return the {@link UserPrincipal} of the user with the given id
+     * @throws UserNotFoundException if no user with the given id is found
+     */
+    @Transactional(readOnly = true)
+    public UserPrincipal getPrincipalById(Integer id) {
+        return jpaUserRepository.findPrincipalById(id)
+                .orElseThrow(() -> new UserNotFoundException("User with id " + id + " not found"));
+    }
+
     /**
      * Saves a new user to the repository.
      *
@@ -55,6 +89,7 @@ public class UserService {
     public void saveUser(User user) {
         try {
             jpaUserRepository.save(user);
+            unknownUsernameCache.invalidate(user.getUsername());
         } catch (DataIntegrityViolationException e) {
             log.debug("User with username {} already exists", user.getUsername());
             throw new UserAlreadyExistException("User with username " + user.getUsername() + " already exists");
@@ -78,6 +113,7 @@ public class UserService {
                         return new RoleNotFoundException("Role " + role.name() + " not found");
                     }));
             jpaUserRepository.save(user);
+            unknownUsernameCache.invalidate(user.getUsername());
         } catch (DataIntegrityViolationException e) {
             log.debug("User with username {} already exists", user.getUsername());
             throw new UserAlreadyExistException("User with username " + user.getUsername() + " already exists");
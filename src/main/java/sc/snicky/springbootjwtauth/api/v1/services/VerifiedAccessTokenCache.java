@@ -0,0 +1,121 @@
+package sc.snicky.springbootjwtauth.api.v1.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import sc.snicky.springbootjwtauth.api.v1.domain.events.SigningKeysRemovedEvent;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bounded cache of already verified access tokens, placed in front of signature verification.
+ * <p>
+ * Clients repeat the same access token for its whole lifetime, so the raw token string is used as the key
+ * and the verified principal with its authorities as the value. Every entry expires no later than the
+ * {@code exp} claim of its token. Only successfully verified tokens are cached; invalid tokens are verified
+ * (and rejected) on every request. Hit, miss and eviction counters are published as {@code cache.*} meters
+ * tagged with {@code cache=access_tokens}.
+ */
+@Slf4j
+@Service
+public class VerifiedAccessTokenCache {
+    private static final String CACHE_NAME = "access_tokens";
+
+    private final AccessTokenService accessTokenService;
+
+    /**
+     * The underlying cache, or {@code null} when caching is switched off.
+     */
+    private final Cache<String, VerifiedAccessToken> cache;
+
+    /**
+     * Creates the cache.
+     *
+     * @param verifier              the service verifying tokens on a cache miss
+     * @param enabled               whether verified tokens are cached at all
+     * @param maxSize               the maximum number of cached tokens
+     * @param meterRegistryProvider the registry the cache statistics are published to, if any
+     */
+    public VerifiedAccessTokenCache(AccessTokenService verifier,
+                                    @Value("${app.auth.tokens.access-cache.enabled:true}") boolean enabled,
+                                    @Value("${app.auth.tokens.access-cache.max-size:10000}") long maxSize,
+                                    ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.accessTokenService = verifier;
+        if (!enabled) {
+            log.info("Verified access token cache is disabled");
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        meterRegistryProvider.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME));
+        log.info("Verified access token cache is enabled, max size: {}", maxSize);
+    }
+
+    /**
+     * Returns the verified token for the given JWT, verifying its signature only if it is not cached yet.
+     *
+     * @param token the raw JWT access token
+     * @return the verified token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired, or has an invalid signature
+     */
+    public VerifiedAccessToken verify(String token) {
+        if (cache == null) {
+            return accessTokenService.verify(token);
+        }
+        return cache.get(token, accessTokenService::verify);
+    }
+
+    /**
+     * Drops every cached token, forcing the next requests to verify their signatures again.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Drops every cached token once signing keys are removed, as some of them were verified with those keys.
+     * Adding or activating keys keeps the cache, so a rotation does not force every token to be verified again.
+     *
+     * @param event the event naming the removed keys
+     */
+    @EventListener
+    public void onSigningKeysRemoved(SigningKeysRemovedEvent event) {
+        log.info("Signing keys {} removed, invalidating verified access tokens", event.keyIds());
+        invalidateAll();
+    }
+
+    /**
+     * Expiry policy that keeps an entry only until the {@code exp} claim of its token.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedAccessToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedAccessToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedAccessToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedAccessToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
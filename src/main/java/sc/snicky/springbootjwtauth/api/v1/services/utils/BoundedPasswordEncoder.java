@@ -0,0 +1,145 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.PasswordHashingOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password encoder decorator running the hashing of another encoder on a dedicated, bounded pool.
+ * <p>
+ * Hashing is deliberately slow and CPU-bound, so the pool is sized to the processors and a fixed queue absorbs
+ * bursts. Request threads only wait for their hash; when the queue is full, the call fails right away with a
+ * {@link PasswordHashingOverloadedException} instead of piling up, so a login storm cannot occupy every servlet
+ * thread and cheap requests keep being served. The queue length, the time a hash waits in the queue and the time
+ * it takes are published as the {@code password_hashing.queue} gauge, the {@code password_hashing.wait} and
+ * {@code password_hashing.hash} timers, and rejections as the {@code password_hashing.rejected} counter.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    /**
+     * Creates the encoder.
+     *
+     * @param encoder       the encoder doing the hashing
+     * @param threads       the number of hashing threads
+     * @param queueCapacity the maximum number of hashes waiting for a thread
+     * @param wait          the time rejected clients are told to wait before retrying
+     * @param meterRegistry the registry the metrics are published to
+     */
+    public BoundedPasswordEncoder(PasswordEncoder encoder, int threads, int queueCapacity, Duration wait,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = encoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = wait;
+        Gauge.builder("password_hashing.queue", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password_hashing.wait")
+                .description("Time a password hash waits for a hashing thread")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password_hashing.hash")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password_hashing.rejected")
+                .description("Password hashes rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes the raw password on the hashing pool.
+     *
+     * @param rawPassword the password to hash
+     * @return the encoded password
+     * @throws PasswordHashingOverloadedException if the hashing queue is full
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Verifies the raw password against the encoded one on the hashing pool.
+     *
+     * @param rawPassword     the password to verify
+     * @param encodedPassword the stored encoded password
+     * @return whether the passwords match
+     * @throws PasswordHashingOverloadedException if the hashing queue is full
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks whether the encoded password should be encoded again; this does not hash, so it runs on the caller.
+     *
+     * @param encodedPassword the stored encoded password
+     * @return whether the password should be encoded again
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the hashing threads once the queued hashes are done.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Callable<T> hashing) {
+        var submittedAt = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(hashing);
+            }).get();
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingOverloadedException("Too many authentication requests, try again later", retryAfter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Creates the daemon hashing threads, named for thread dumps.
+     */
+    private static final class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves the IP address of the client behind the trusted proxies, such as the load balancer.
+ * <p>
+ * The remote address is the client unless it is a trusted proxy. Otherwise {@code X-Forwarded-For} is read
+ * from the right, as each proxy appends the address it received the request from, and the first address
+ * that is not a trusted proxy is the client. Addresses left of it were written by the client itself and
+ * are ignored, so a client cannot pick the address it is rate limited as.
+ */
+public final class ClientIpResolver {
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    /**
+     * Creates a resolver.
+     *
+     * @param proxies the addresses or CIDR ranges of the trusted proxies, none to use the remote address
+     */
+    public ClientIpResolver(Collection<String> proxies) {
+        this.trustedProxies = proxies.stream()
+                .map(String::strip)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    /**
+     * Resolves the IP address of the client that sent the request.
+     *
+     * @param request the HTTP request
+     * @return the client IP address, or the nearest hop that is not a trusted proxy
+     */
+    public String resolve(HttpServletRequest request) {
+        var address = request.getRemoteAddr();
+        if (!isTrustedProxy(address)) {
+            return address;
+        }
+        var forwardedFor = request.getHeaders(FORWARDED_FOR_HEADER);
+        var hops = new ArrayList<String>();
+        while (forwardedFor.hasMoreElements()) {
+            for (var hop : forwardedFor.nextElement().split(",")) {
+                hops.add(hop.strip());
+            }
+        }
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            var hop = hops.get(i);
+            if (hop.isEmpty()) {
+                continue;
+            }
+            address = hop;
+            if (!isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        return address;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        try {
+            return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.KeyOperation;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.MacAlgorithm;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SecretJwk;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ESigningAlgorithm;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable key material used to sign and verify access tokens.
+ * <p>
+ * The key, the matching signature algorithm and the parser are built once and can be shared
+ * between request threads: {@link JwtParser} is immutable and thread-safe after {@code build()}.
+ * {@link JwtBuilder} is mutable, so a fresh builder is handed out per token, already bound to the key.
+ * <p>
+ * Key material built from an asymmetric key pair also carries a key ID, written to the {@code kid} header
+ * of every token, and the public key as a JWK, so that other services can verify tokens on their own.
+ * Verify-only key material, e.g. a retired key of a keyring, has no signing key.
+ */
+public final class JwtKeyMaterial {
+    private final ESigningAlgorithm algorithm;
+    private final String secret;
+    private final String keyId;
+    private final UnaryOperator<JwtBuilder> signer;
+    private final Key verificationKey;
+    private final JwtParser parser;
+    private final String publicJwkJson;
+
+    private JwtKeyMaterial(ESigningAlgorithm signingAlgorithm, String rawSecret, String kid,
+                           UnaryOperator<JwtBuilder> jwtSigner, Key key, String publicJwk) {
+        this.algorithm = signingAlgorithm;
+        this.secret = rawSecret;
+        this.keyId = kid;
+        this.signer = jwtSigner;
+        this.verificationKey = key;
+        this.parser = key instanceof SecretKey secretKey
+                ? Jwts.parser().verifyWith(secretKey).build()
+                : Jwts.parser().verifyWith((PublicKey) key).build();
+        this.publicJwkJson = publicJwk;
+    }
+
+    /**
+     * Derives HMAC key material from the given secret.
+     *
+     * @param secret the raw signing secret
+     * @return the key material for the secret
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is too short for HMAC-SHA
+     */
+    public static JwtKeyMaterial ofSecret(String secret) {
+        var signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        var macAlgorithm = resolveAlgorithm(signingKey);
+        return new JwtKeyMaterial(
+                ESigningAlgorithm.HMAC,
+                secret,
+                null,
+                builder -> builder.signWith(signingKey, macAlgorithm),
+                signingKey,
+                null);
+    }
+
+    /**
+     * Builds asymmetric key material from the given key pair.
+     *
+     * @param algorithm the asymmetric signing algorithm of the key pair
+     * @param keyPair   the key pair; the private key signs, the public key verifies
+     * @param keyId     the key ID to publish, or {@code null} to use the RFC 7638 thumbprint of the public key
+     * @return the key material for the key pair
+     * @throws io.jsonwebtoken.security.InvalidKeyException if the keys do not match the algorithm
+     */
+    public static JwtKeyMaterial ofKeyPair(ESigningAlgorithm algorithm, KeyPair keyPair, String keyId) {
+        return asymmetric(algorithm, keyPair.getPublic(), keyPair.getPrivate(), keyId);
+    }
+
+    /**
+     * Builds key material from a JWK of a keyring.
+     * Symmetric {@code oct} keys and asymmetric P-256 and Ed25519 keys are supported; the {@code kid} is mandatory.
+     * A key signs new tokens only if its {@code key_ops} contain {@code sign}; otherwise it only verifies them,
+     * and for asymmetric keys the private part is not needed.
+     *
+     * @param jwk the JWK
+     * @return the key material for the JWK
+     * @throws IllegalArgumentException if the JWK has no key ID, is not supported, or signs without a private key
+     */
+    public static JwtKeyMaterial ofJwk(Jwk<?> jwk) {
+        var kid = jwk.getId();
+        if (kid == null || kid.isBlank()) {
+            throw new IllegalArgumentException("Keyring keys must have a kid");
+        }
+        boolean signing = jwk.getOperations() != null && jwk.getOperations().stream()
+                .map(KeyOperation::getId)
+                .anyMatch("sign"::equals);
+        if (jwk instanceof SecretJwk secretJwk) {
+            var secretKey = Keys.hmacShaKeyFor(secretJwk.toKey().getEncoded());
+            var macAlgorithm = resolveAlgorithm(secretKey);
+            return new JwtKeyMaterial(
+                    ESigningAlgorithm.HMAC,
+                    null,
+                    kid,
+                    signing ? builder -> builder.header().keyId(kid).and().signWith(secretKey, macAlgorithm) : null,
+                    secretKey,
+                    null);
+        }
+        if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+            var keyPair = privateJwk.toKeyPair();
+            var algorithm = SigningKeys.algorithmOf(keyPair.getPublic());
+            return asymmetric(algorithm, keyPair.getPublic(), signing ? keyPair.getPrivate() : null, kid);
+        }
+        if (jwk instanceof PublicJwk<?> publicJwk && !signing) {
+            return asymmetric(SigningKeys.algorithmOf(publicJwk.toKey()), publicJwk.toKey(), null, kid);
+        }
+        throw new IllegalArgumentException("Unsupported keyring key " + kid + ": signing keys need their private part");
+    }
+
+    private static JwtKeyMaterial asymmetric(ESigningAlgorithm algorithm, PublicKey publicKey,
+                                             PrivateKey privateKey, String keyId) {
+        var signatureAlgorithm = SigningKeys.signatureAlgorithm(algorithm);
+        var jwkBuilder = Jwks.builder()
+                .key(publicKey)
+                .algorithm(signatureAlgorithm.getId())
+                .publicKeyUse("sig");
+        PublicJwk<?> publicJwk = keyId == null
+                ? jwkBuilder.idFromThumbprint().build()
+                : jwkBuilder.id(keyId).build();
+        var kid = publicJwk.getId();
+        return new JwtKeyMaterial(
+                algorithm,
+                null,
+                kid,
+                privateKey == null ? null
+                        : builder -> builder.header().keyId(kid).and().signWith(privateKey, signatureAlgorithm),
+                publicKey,
+                Jwks.json(publicJwk));
+    }
+
+    /**
+     * Returns the signing algorithm this key material was built for.
+     *
+     * @return the signing algorithm
+     */
+    public ESigningAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Checks whether this key material was derived from the given HMAC secret.
+     * The identity check keeps the common case (the same injected string) free of any comparison work.
+     *
+     * @param candidate the secret to compare with
+     * @return true if the key material belongs to the secret, false otherwise
+     */
+    public boolean isDerivedFrom(String candidate) {
+        return secret != null && (secret == candidate || secret.equals(candidate));
+    }
+
+    /**
+     * Returns the key ID written to the {@code kid} header of signed tokens.
+     *
+     * @return the key ID, or an empty optional for HMAC key material
+     */
+    public Optional<String> keyId() {
+        return Optional.ofNullable(keyId);
+    }
+
+    /**
+     * Returns the public key as a serialized JWK, safe to publish.
+     *
+     * @return the public JWK JSON, or an empty optional for HMAC key material
+     */
+    public Optional<String> publicJwkJson() {
+        return Optional.ofNullable(publicJwkJson);
+    }
+
+    /**
+     * Checks whether this key material can sign new tokens.
+     *
+     * @return true if a signing key is present, false for verify-only key material
+     */
+    public boolean canSign() {
+        return signer != null;
+    }
+
+    /**
+     * Returns the key verifying token signatures: the HMAC key or the public key.
+     *
+     * @return the verification key
+     */
+    public Key verificationKey() {
+        return verificationKey;
+    }
+
+    /**
+     * Returns a new JWT builder already configured to sign with this key material.
+     *
+     * @return a signing JWT builder
+     * @throws IllegalStateException if the key material is verify-only
+     */
+    public JwtBuilder builder() {
+        if (signer == null) {
+            throw new IllegalStateException("Key " + keyId + " is verify-only");
+        }
+        return signer.apply(Jwts.builder());
+    }
+
+    /**
+     * Returns the shared parser verifying signatures with this key material.
+     *
+     * @return the thread-safe JWT parser
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Resolves the MAC algorithm {@link Keys#hmacShaKeyFor(byte[])} selected for the key,
+     * so that signing does not have to look it up again for every token.
+     *
+     * @param key the HMAC key
+     * @return the matching MAC algorithm
+     */
+    private static MacAlgorithm resolveAlgorithm(SecretKey key) {
+        return switch (key.getAlgorithm()) {
+            case "HmacSHA512" -> Jwts.SIG.HS512;
+            case "HmacSHA384" -> Jwts.SIG.HS384;
+            default -> Jwts.SIG.HS256;
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+
+import java.security.Key;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable set of access token keys: exactly one active key signing new tokens
+ * and any number of verify-only keys, all selected by the {@code kid} header on verification.
+ * <p>
+ * A keyring is a snapshot. Rotating keys means building a new keyring and swapping the reference,
+ * so verification never takes a lock: the key is found with a single lookup in an immutable map,
+ * and the parser, which resolves keys through that map, is built once per keyring.
+ * Tokens without a {@code kid} header are verified with the active key, which keeps tokens
+ * issued before the keyring was introduced valid as long as their key stays active.
+ */
+public final class JwtKeyring {
+    private final JwtKeyMaterial active;
+    private final Map<String, JwtKeyMaterial> keysById;
+    private final JwtParser parser;
+    private final String publicJwkSetJson;
+
+    private JwtKeyring(JwtKeyMaterial activeKey, Map<String, JwtKeyMaterial> keys) {
+        this.active = activeKey;
+        this.keysById = Map.copyOf(keys);
+        this.parser = this.keysById.isEmpty()
+                ? activeKey.parser()
+                : Jwts.parser().keyLocator(new KeyIdLocator(activeKey, this.keysById)).build();
+        this.publicJwkSetJson = this.keysById.values().stream()
+                .flatMap(key -> key.publicJwkJson().stream())
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    /**
+     * Builds a keyring holding a single key, which signs and verifies every token.
+     *
+     * @param active the signing key
+     * @return the keyring
+     */
+    public static JwtKeyring of(JwtKeyMaterial active) {
+        return new JwtKeyring(active, active.keyId().map(kid -> Map.of(kid, active)).orElse(Map.of()));
+    }
+
+    /**
+     * Builds a keyring from JWKs, see {@link JwtKeyMaterial#ofJwk(Jwk)}.
+     *
+     * @param jwks the keys; exactly one of them must have {@code sign} in its {@code key_ops}
+     * @return the keyring
+     * @throws IllegalArgumentException if a key is invalid, a key ID is repeated, or there is not exactly one signing key
+     */
+    public static JwtKeyring ofJwks(Collection<? extends Jwk<?>> jwks) {
+        var keysById = new HashMap<String, JwtKeyMaterial>();
+        JwtKeyMaterial active = null;
+        for (var jwk : jwks) {
+            var key = JwtKeyMaterial.ofJwk(jwk);
+            var kid = key.keyId().orElseThrow();
+            if (keysById.put(kid, key) != null) {
+                throw new IllegalArgumentException("Duplicate keyring key ID: " + kid);
+            }
+            if (key.canSign()) {
+                if (active != null) {
+                    throw new IllegalArgumentException("More than one signing key in keyring: "
+                            + active.keyId().orElseThrow() + ", " + kid);
+                }
+                active = key;
+            }
+        }
+        if (active == null) {
+            throw new IllegalArgumentException("No signing key in keyring, mark one key with \"key_ops\": [\"sign\"]");
+        }
+        return new JwtKeyring(active, keysById);
+    }
+
+    /**
+     * Parses a keyring from JWK Set JSON, see {@link #ofJwks(Collection)}.
+     *
+     * @param jwkSetJson the JWK Set JSON
+     * @return the keyring
+     */
+    public static JwtKeyring parse(String jwkSetJson) {
+        return ofJwks(Jwks.setParser().build().parse(jwkSetJson).getKeys());
+    }
+
+    /**
+     * Parses a keyring from JWK JSON documents, each holding one key, see {@link #ofJwks(Collection)}.
+     *
+     * @param jwkJsons the JWK JSON documents
+     * @return the keyring
+     */
+    public static JwtKeyring parse(Collection<String> jwkJsons) {
+        var parser = Jwks.parser().build();
+        List<Jwk<?>> jwks = jwkJsons.stream()
+                .<Jwk<?>>map(parser::parse)
+                .toList();
+        return ofJwks(jwks);
+    }
+
+    /**
+     * Returns the key signing new tokens.
+     *
+     * @return the active key material
+     */
+    public JwtKeyMaterial active() {
+        return active;
+    }
+
+    /**
+     * Returns the IDs of all keys in the keyring.
+     *
+     * @return the immutable set of key IDs
+     */
+    public Set<String> keyIds() {
+        return keysById.keySet();
+    }
+
+    /**
+     * Returns the shared parser verifying tokens with the key named by their {@code kid} header.
+     *
+     * @return the thread-safe JWT parser
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Returns the public keys of the keyring as a JWK Set; symmetric keys are never included.
+     *
+     * @return the JWK Set JSON
+     */
+    public String publicJwkSetJson() {
+        return publicJwkSetJson;
+    }
+
+    /**
+     * Resolves the verification key of a token by its {@code kid} header.
+     */
+    private static final class KeyIdLocator extends LocatorAdapter<Key> {
+        private final JwtKeyMaterial active;
+        private final Map<String, JwtKeyMaterial> keysById;
+
+        private KeyIdLocator(JwtKeyMaterial activeKey, Map<String, JwtKeyMaterial> keys) {
+            this.active = activeKey;
+            this.keysById = keys;
+        }
+
+        @Override
+        protected Key locate(JwsHeader header) {
+            var kid = header.getKeyId();
+            if (kid == null) {
+                return active.verificationKey();
+            }
+            var key = keysById.get(kid);
+            if (key == null) {
+                throw new InvalidKeyException("Unknown signing key ID: " + kid);
+            }
+            return key.verificationKey();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.EPasswordHashingAlgorithm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the password encoder from the configured algorithm and cost.
+ * <p>
+ * Hashes are stored with an algorithm prefix, {@code {bcrypt}} or {@code {pbkdf2}}, and with their cost, so every
+ * stored hash keeps verifying after the configuration changes. Hashes without a prefix, written before the prefix
+ * was introduced, are verified as BCrypt. {@link PasswordEncoder#upgradeEncoding} reports any hash whose algorithm
+ * or cost differs from the configured one, so it can be re-hashed when its password is next known.
+ */
+public final class PasswordEncoders {
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final String PBKDF2_ID = "pbkdf2";
+
+    private PasswordEncoders() {
+    }
+
+    /**
+     * Creates the encoder hashing new passwords with the given algorithm and cost.
+     *
+     * @param algorithm        the algorithm of new hashes
+     * @param bcryptStrength   the BCrypt cost, from 4 to 31
+     * @param pbkdf2Iterations the number of PBKDF2 iterations
+     * @return the delegating password encoder
+     */
+    public static PasswordEncoder create(EPasswordHashingAlgorithm algorithm, int bcryptStrength, int pbkdf2Iterations) {
+        var bcrypt = new StrengthAwareBCryptPasswordEncoder(bcryptStrength);
+        var encoders = Map.<String, PasswordEncoder>of(
+                BCRYPT_ID, bcrypt,
+                PBKDF2_ID, new IterationsAwarePbkdf2PasswordEncoder(pbkdf2Iterations));
+        var idForEncode = switch (algorithm) {
+            case BCRYPT -> BCRYPT_ID;
+            case PBKDF2 -> PBKDF2_ID;
+        };
+        var encoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * BCrypt encoder asking for an upgrade whenever the cost of a hash differs from the configured one,
+     * not only when it is lower.
+     */
+    private static final class StrengthAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        private static final Pattern COST = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+        private final int strength;
+
+        private StrengthAwareBCryptPasswordEncoder(int configuredStrength) {
+            super(configuredStrength);
+            this.strength = configuredStrength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            var cost = COST.matcher(encodedPassword);
+            return !cost.find() || Integer.parseInt(cost.group(1)) != strength;
+        }
+    }
+
+    /**
+     * PBKDF2 encoder storing the iteration count in front of the hash, as {@code <iterations>$<hash>}, because the
+     * hash itself does not record it. Encoders for the iteration counts of older hashes are created on demand.
+     */
+    private static final class IterationsAwarePbkdf2PasswordEncoder implements PasswordEncoder {
+        private static final char SEPARATOR = '$';
+        private static final int SALT_LENGTH = 16;
+        private static final int RADIX = 10;
+
+        private final int iterations;
+        private final Map<Integer, Pbkdf2PasswordEncoder> encodersByIterations = new ConcurrentHashMap<>();
+
+        private IterationsAwarePbkdf2PasswordEncoder(int configuredIterations) {
+            this.iterations = configuredIterations;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return iterations + String.valueOf(SEPARATOR) + encoder(iterations).encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            var separator = encodedPassword.indexOf(SEPARATOR);
+            if (separator <= 0) {
+                return false;
+            }
+            try {
+                var hashIterations = Integer.parseInt(encodedPassword, 0, separator, RADIX);
+                return encoder(hashIterations).matches(rawPassword, encodedPassword.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return !encodedPassword.startsWith(iterations + String.valueOf(SEPARATOR));
+        }
+
+        private Pbkdf2PasswordEncoder encoder(int hashIterations) {
+            return encodersByIterations.computeIfAbsent(hashIterations, count ->
+                    new Pbkdf2PasswordEncoder("", SALT_LENGTH, count,
+                            Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ESigningAlgorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Utility methods for the asymmetric key pairs used to sign access tokens.
+ */
+public final class SigningKeys {
+    private static final int P256_FIELD_SIZE = 256;
+
+    private SigningKeys() {
+    }
+
+    /**
+     * Returns the JWS algorithm for an asymmetric signing algorithm.
+     *
+     * @param algorithm the configured signing algorithm
+     * @return the matching JWS signature algorithm
+     * @throws IllegalArgumentException if the algorithm is not asymmetric
+     */
+    public static SignatureAlgorithm signatureAlgorithm(ESigningAlgorithm algorithm) {
+        return switch (algorithm) {
+            case ES256 -> Jwts.SIG.ES256;
+            case ED25519 -> Jwts.SIG.EdDSA;
+            case HMAC -> throw new IllegalArgumentException("HMAC is not an asymmetric signing algorithm");
+        };
+    }
+
+    /**
+     * Detects the asymmetric signing algorithm of a public key.
+     *
+     * @param publicKey the public key
+     * @return {@link ESigningAlgorithm#ES256} for P-256 keys, {@link ESigningAlgorithm#ED25519} for Ed25519 keys
+     * @throws IllegalArgumentException for any other key
+     */
+    public static ESigningAlgorithm algorithmOf(PublicKey publicKey) {
+        if (publicKey instanceof ECPublicKey ecKey && ecKey.getParams().getCurve().getField().getFieldSize() == P256_FIELD_SIZE) {
+            return ESigningAlgorithm.ES256;
+        }
+        if (publicKey instanceof EdECPublicKey edKey && "Ed25519".equalsIgnoreCase(edKey.getParams().getName())) {
+            return ESigningAlgorithm.ED25519;
+        }
+        throw new IllegalArgumentException("Unsupported signing key: " + publicKey.getAlgorithm());
+    }
+
+    /**
+     * Generates a fresh key pair for the given algorithm.
+     *
+     * @param algorithm the asymmetric signing algorithm
+     * @return a new key pair
+     */
+    public static KeyPair generate(ESigningAlgorithm algorithm) {
+        return switch (algorithm) {
+            case ES256 -> Jwts.SIG.ES256.keyPair().build();
+            case ED25519 -> Jwks.CRV.Ed25519.keyPair().build();
+            case HMAC -> throw new IllegalArgumentException("HMAC is not an asymmetric signing algorithm");
+        };
+    }
+
+    /**
+     * Reads a key pair from PEM files: a PKCS#8 {@code PRIVATE KEY} and an X.509 {@code PUBLIC KEY},
+     * as written by {@code openssl genpkey} and {@code openssl pkey -pubout}.
+     *
+     * @param algorithm      the asymmetric signing algorithm of the keys
+     * @param privateKeyPath the path of the private key PEM file
+     * @param publicKeyPath  the path of the public key PEM file
+     * @return the key pair
+     * @throws IllegalStateException if a file cannot be read or does not hold a key of the algorithm
+     */
+    public static KeyPair read(ESigningAlgorithm algorithm, Path privateKeyPath, Path publicKeyPath) {
+        try {
+            var keyFactory = KeyFactory.getInstance(algorithm == ESigningAlgorithm.ED25519 ? "Ed25519" : "EC");
+            var publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(readPem(publicKeyPath)));
+            var privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(privateKeyPath)));
+            return new KeyPair(publicKey, privateKey);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " signing key pair: "
+                    + privateKeyPath + ", " + publicKeyPath, e);
+        }
+    }
+
+    private static byte[] readPem(Path path) {
+        try {
+            var pem = Files.readString(path)
+                    .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "");
+            return Base64.getMimeDecoder().decode(pem);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read signing key file " + path, e);
+        }
+    }
+}
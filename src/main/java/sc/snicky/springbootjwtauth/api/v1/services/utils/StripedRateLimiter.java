@@ -0,0 +1,124 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter keeping one bucket per key in a fixed number of lock-striped, bounded maps.
+ * <p>
+ * A bucket holds up to {@code capacity} permits and refills continuously, reaching full capacity after
+ * {@code refillPeriod}. A key is hashed to one stripe, so a check takes one uncontended monitor in the common case,
+ * one map lookup and a little arithmetic; it never allocates except for a key's first bucket. Each stripe keeps
+ * its buckets in access order and drops the least recently used one beyond its share of {@code maxKeys}, so memory
+ * stays bounded however many distinct keys arrive. A dropped bucket only forgets the key's past requests.
+ */
+public final class StripedRateLimiter {
+    private static final int HASH_SPREAD_SHIFT = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final double capacity;
+    private final double permitsPerNano;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Creates the limiter.
+     *
+     * @param burst        the maximum number of permits of a key, available in a burst
+     * @param refillPeriod the time an empty bucket takes to refill completely
+     * @param maxKeys      the maximum number of keys tracked
+     * @param stripeCount  the number of stripes, rounded up to a power of two
+     * @param clock        the monotonic clock in nanoseconds, {@code System::nanoTime} outside tests
+     */
+    public StripedRateLimiter(int burst, Duration refillPeriod, int maxKeys, int stripeCount, LongSupplier clock) {
+        var count = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(Math.max(1, Math.ceilDiv(maxKeys, count)));
+        }
+        this.stripeMask = count - 1;
+        this.capacity = burst;
+        this.permitsPerNano = burst / (double) refillPeriod.toNanos();
+        this.nanoClock = clock;
+    }
+
+    /**
+     * Takes a permit of the key if one is available.
+     *
+     * @param key the rate-limited key
+     * @return 0 if a permit was taken, otherwise the nanoseconds until the next permit is available
+     */
+    public long tryAcquire(String key) {
+        var hash = key.hashCode();
+        var stripe = stripes[(hash ^ (hash >>> HASH_SPREAD_SHIFT)) & stripeMask];
+        var now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            var bucket = stripe.get(key);
+            if (bucket == null) {
+                stripe.put(key, new Bucket(capacity - 1, now));
+                return 0;
+            }
+            return bucket.tryAcquire(now, capacity, permitsPerNano);
+        }
+    }
+
+    /**
+     * Returns the number of tracked keys.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Buckets of one stripe, least recently used first.
+     */
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private static final int INITIAL_CAPACITY = 16;
+        private static final float LOAD_FACTOR = 0.75f;
+
+        private final int maxEntries;
+
+        private Stripe(int limit) {
+            super(INITIAL_CAPACITY, LOAD_FACTOR, true);
+            this.maxEntries = limit;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+
+    /**
+     * Permits of one key, refilled lazily on access. Guarded by the monitor of its stripe.
+     */
+    private static final class Bucket {
+        private double permits;
+        private long refilledAt;
+
+        private Bucket(double initialPermits, long now) {
+            this.permits = initialPermits;
+            this.refilledAt = now;
+        }
+
+        private long tryAcquire(long now, double capacity, double permitsPerNano) {
+            permits = Math.min(capacity, permits + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+            if (permits >= 1) {
+                permits -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - permits) / permitsPerNano);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashes refresh tokens with SHA-256 without a provider lookup per call.
+ * <p>
+ * Each platform thread keeps its own digest and buffers, so hashing an ASCII token, which all generated
+ * refresh tokens are, allocates nothing but the resulting {@link ProtectedToken}. Virtual threads are
+ * short-lived and numerous, so per-thread state would be thrown away with them; they get a clone of a
+ * prototype digest instead, which is still much cheaper than {@link MessageDigest#getInstance(String)}.
+ */
+public final class TokenHasher {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int INITIAL_BUFFER_SIZE = 64;
+    private static final char FIRST_NON_ASCII = 0x80;
+    private static final MessageDigest PROTOTYPE = newDigest();
+    private static final ThreadLocal<HashState> STATE = ThreadLocal.withInitial(() -> new HashState(newDigest()));
+
+    private TokenHasher() {
+    }
+
+    /**
+     * Hashes the given token using the SHA-256 algorithm.
+     *
+     * @param token the raw token
+     * @return the hash of the token
+     */
+    public static ProtectedToken hash(String token) {
+        if (Thread.currentThread().isVirtual()) {
+            return new HashState(cloneDigest()).hash(token);
+        }
+        return STATE.get().hash(token);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " algorithm not found", e);
+        }
+    }
+
+    private static MessageDigest cloneDigest() {
+        try {
+            return (MessageDigest) PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    /**
+     * Digest with reusable input and output buffers, confined to one thread.
+     */
+    private static final class HashState {
+        private final MessageDigest digest;
+        private final byte[] output = new byte[ProtectedToken.SIZE];
+        private byte[] input = new byte[INITIAL_BUFFER_SIZE];
+
+        private HashState(MessageDigest threadDigest) {
+            this.digest = threadDigest;
+        }
+
+        private ProtectedToken hash(String token) {
+            int length = token.length();
+            if (length > input.length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = token.charAt(i);
+                if (c >= FIRST_NON_ASCII) {
+                    digest.reset();
+                    digest.update(token.getBytes(StandardCharsets.UTF_8));
+                    return finish();
+                }
+                input[i] = (byte) c;
+            }
+            digest.update(input, 0, length);
+            return finish();
+        }
+
+        private ProtectedToken finish() {
+            try {
+                digest.digest(output, 0, output.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            return ProtectedToken.ofDigest(output, 0);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+-- The token index of the partitioned tokens table is local to each partition, so a lookup by hash alone probes
+-- every partition and nothing enforces uniqueness across them. token_lookup is an unpartitioned map from each
+-- hash to its expiration: its primary key makes the hash unique across the whole table again, and lookups
+-- read exp from it first so that the planner prunes the tokens scan to the one partition holding the token.
+--
+-- The row triggers below keep it in sync within the statement that changes tokens, whichever path that is.
+-- Dropping a partition fires no triggers, so maintain_token_partitions deletes the dropped day itself.
+
+CREATE TABLE token_lookup (
+    token BYTEA PRIMARY KEY,
+    exp TIMESTAMP NOT NULL
+);
+
+CREATE INDEX token_lookup_exp_idx ON token_lookup (exp);
+
+INSERT INTO token_lookup (token, exp)
+SELECT token, exp FROM tokens;
+
+CREATE FUNCTION sync_token_lookup()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM token_lookup WHERE token = OLD.token;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO token_lookup (token, exp) VALUES (NEW.token, NEW.exp);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Row triggers on a partitioned table are cloned to every partition, including the ones attached later.
+CREATE TRIGGER tokens_sync_token_lookup
+    AFTER INSERT OR DELETE OR UPDATE OF token, exp ON tokens
+    FOR EACH ROW EXECUTE FUNCTION sync_token_lookup();
+
+-- Same as in V7, except for the lookup rows: moving rows out of the default partition deletes theirs through
+-- the trigger, so they are added back once the new partition is attached, and the rows of a dropped partition
+-- are deleted with it.
+CREATE OR REPLACE FUNCTION maintain_token_partitions(premake_days INT)
+    RETURNS TABLE (created INT, dropped INT)
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+BEGIN
+    created := 0;
+    dropped := 0;
+    FOR partition_day IN SELECT generate_series(LOCALTIMESTAMP::date, LOCALTIMESTAMP::date + premake_days, INTERVAL '1 day')::date
+    LOOP
+        partition_name := 'tokens_p' || to_char(partition_day, 'YYYYMMDD');
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        EXECUTE format('CREATE TABLE %I (LIKE tokens INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM tokens_default WHERE exp >= %L AND exp < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', partition_day, partition_day + 1, partition_name);
+        EXECUTE format('ALTER TABLE tokens ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, partition_day, partition_day + 1);
+        EXECUTE format('INSERT INTO token_lookup (token, exp) SELECT token, exp FROM %I', partition_name);
+        created := created + 1;
+    END LOOP;
+
+    FOR partition_name, partition_day IN
+        SELECT child.relname, to_date(substring(child.relname FROM 9), 'YYYYMMDD')
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.relname = 'tokens'
+          AND child.relname ~ '^tokens_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 9), 'YYYYMMDD') + 1 <= LOCALTIMESTAMP
+    LOOP
+        EXECUTE format('ALTER TABLE tokens DETACH PARTITION %I', partition_name);
+        EXECUTE format('DROP TABLE %I', partition_name);
+        DELETE FROM token_lookup WHERE exp >= partition_day AND exp < partition_day + 1;
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN NEXT;
+END;
+$$;
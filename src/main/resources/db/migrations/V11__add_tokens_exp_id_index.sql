@@ -0,0 +1,3 @@
+-- The purge job walks expired tokens in (exp, id) order. This index lets every batch start right after the
+-- previous one and read expired rows only, instead of filtering unexpired rows out of a walk of the primary key.
+CREATE INDEX tokens_exp_id_idx ON tokens (exp, id);
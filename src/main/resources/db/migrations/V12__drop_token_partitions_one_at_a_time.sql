@@ -0,0 +1,74 @@
+-- maintain_token_partitions detached and dropped every expired partition in the one transaction of the job.
+-- DETACH PARTITION and DROP TABLE both take an ACCESS EXCLUSIVE lock on tokens, held until that transaction
+-- ended, and while waiting for it behind a long transaction every login and refresh queued behind the job.
+-- DETACH PARTITION ... CONCURRENTLY would avoid that, but it is not allowed while tokens has a default partition.
+--
+-- So creating and dropping partitions are split: create_token_partitions creates the new days as before, and the
+-- job drops every expired partition in its own short transaction with drop_token_partition, under a lock_timeout.
+-- Dropping a partition still takes ACCESS EXCLUSIVE on tokens, but only for the catalog change at the end of the
+-- transaction, and the job gives up after the timeout instead of queueing in front of the application; the
+-- partition is dropped on a later run. Every token in it has expired, so it does no harm in the meantime.
+
+DROP FUNCTION maintain_token_partitions(INT);
+
+-- Creates the daily partitions tokens_pYYYYMMDD from today to premake_days ahead, as V10 did, and returns their count.
+CREATE FUNCTION create_token_partitions(premake_days INT)
+    RETURNS INT
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    FOR partition_day IN SELECT generate_series(LOCALTIMESTAMP::date, LOCALTIMESTAMP::date + premake_days, INTERVAL '1 day')::date
+    LOOP
+        partition_name := 'tokens_p' || to_char(partition_day, 'YYYYMMDD');
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        EXECUTE format('CREATE TABLE %I (LIKE tokens INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM tokens_default WHERE exp >= %L AND exp < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', partition_day, partition_day + 1, partition_name);
+        EXECUTE format('ALTER TABLE tokens ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, partition_day, partition_day + 1);
+        EXECUTE format('INSERT INTO token_lookup (token, exp) SELECT token, exp FROM %I', partition_name);
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+-- The daily partitions whose day has passed, so every token in them has expired, oldest first.
+CREATE FUNCTION expired_token_partitions()
+    RETURNS TABLE (partition_name TEXT)
+    LANGUAGE sql
+    STABLE
+AS $$
+    SELECT child.relname::TEXT
+    FROM pg_inherits
+             JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+             JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+    WHERE parent.relname = 'tokens'
+      AND child.relname ~ '^tokens_p[0-9]{8}$'
+      AND to_date(substring(child.relname FROM 9), 'YYYYMMDD') + 1 <= LOCALTIMESTAMP
+    ORDER BY child.relname;
+$$;
+
+-- Drops one expired partition and the lookup rows of its day. Dropping a partition fires no triggers, so the lookup
+-- rows are deleted first, which only locks token_lookup; the lock on tokens is taken last.
+CREATE FUNCTION drop_token_partition(partition_name TEXT)
+    RETURNS VOID
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    partition_day DATE;
+BEGIN
+    IF partition_name ~ '^tokens_p[0-9]{8}$' THEN
+        partition_day := to_date(substring(partition_name FROM 9), 'YYYYMMDD');
+    END IF;
+    IF partition_day IS NULL OR partition_day + 1 > LOCALTIMESTAMP THEN
+        RAISE EXCEPTION 'Not an expired token partition: %', partition_name;
+    END IF;
+    DELETE FROM token_lookup WHERE exp >= partition_day AND exp < partition_day + 1;
+    EXECUTE format('DROP TABLE %I', partition_name);
+END;
+$$;
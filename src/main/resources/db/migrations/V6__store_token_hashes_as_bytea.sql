@@ -0,0 +1,8 @@
+-- Refresh tokens are stored as their SHA-256 hash. Keep the raw 32-byte digest instead of
+-- its 44-character Base64 text, which shrinks the rows and the unique index on token.
+-- The type change rewrites the table and rebuilds the unique index.
+ALTER TABLE tokens
+    ALTER COLUMN token TYPE BYTEA USING decode(token, 'base64');
+
+ALTER TABLE tokens
+    ADD CONSTRAINT tokens_token_size_check CHECK (octet_length(token) = 32);
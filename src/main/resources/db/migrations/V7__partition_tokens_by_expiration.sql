@@ -0,0 +1,79 @@
+-- Refresh tokens have a fixed lifetime, so partition them by day of expiration. Expired tokens then go away
+-- by dropping whole partitions (see maintain_token_partitions) instead of row deletes that bloat the table.
+--
+-- A unique index on a partitioned table must contain the partition key, so token can no longer be unique
+-- across the whole table. It stays unique in practice, being the SHA-256 hash of 32 random bytes, and lookups
+-- by hash probe the small per-partition token indexes of the few live partitions.
+
+ALTER TABLE tokens RENAME TO tokens_unpartitioned;
+ALTER INDEX tokens_pkey RENAME TO tokens_unpartitioned_pkey;
+ALTER INDEX tokens_token_key RENAME TO tokens_unpartitioned_token_key;
+ALTER SEQUENCE tokens_id_seq OWNED BY NONE;
+
+CREATE TABLE tokens (
+    id INT NOT NULL DEFAULT nextval('tokens_id_seq'),
+    token BYTEA NOT NULL CONSTRAINT tokens_token_size_check CHECK (octet_length(token) = 32),
+    is_active BOOLEAN DEFAULT TRUE,
+    user_id INT REFERENCES users(id) ON DELETE CASCADE,
+    exp TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT NOW(),
+    PRIMARY KEY (id, exp)
+) PARTITION BY RANGE (exp);
+
+CREATE INDEX tokens_token_idx ON tokens (token);
+
+-- Catches tokens expiring beyond the pre-created partitions, e.g. with a custom expiration.
+CREATE TABLE tokens_default PARTITION OF tokens DEFAULT;
+
+-- Creates the daily partitions tokens_pYYYYMMDD from today to premake_days ahead, and drops the partitions
+-- whose day has passed, so every token in them has expired. Rows of a new day already in the default partition
+-- are moved into the new partition before it is attached. Returns the number of created and dropped partitions.
+CREATE FUNCTION maintain_token_partitions(premake_days INT)
+    RETURNS TABLE (created INT, dropped INT)
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    partition_day DATE;
+    partition_name TEXT;
+BEGIN
+    created := 0;
+    dropped := 0;
+    FOR partition_day IN SELECT generate_series(LOCALTIMESTAMP::date, LOCALTIMESTAMP::date + premake_days, INTERVAL '1 day')::date
+    LOOP
+        partition_name := 'tokens_p' || to_char(partition_day, 'YYYYMMDD');
+        CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+        EXECUTE format('CREATE TABLE %I (LIKE tokens INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM tokens_default WHERE exp >= %L AND exp < %L RETURNING *) '
+                           'INSERT INTO %I SELECT * FROM moved', partition_day, partition_day + 1, partition_name);
+        EXECUTE format('ALTER TABLE tokens ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, partition_day, partition_day + 1);
+        created := created + 1;
+    END LOOP;
+
+    FOR partition_name IN
+        SELECT child.relname
+        FROM pg_inherits
+                 JOIN pg_class parent ON parent.oid = pg_inherits.inhparent
+                 JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+        WHERE parent.relname = 'tokens'
+          AND child.relname ~ '^tokens_p[0-9]{8}$'
+          AND to_date(substring(child.relname FROM 9), 'YYYYMMDD') + 1 <= LOCALTIMESTAMP
+    LOOP
+        EXECUTE format('ALTER TABLE tokens DETACH PARTITION %I', partition_name);
+        EXECUTE format('DROP TABLE %I', partition_name);
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN NEXT;
+END;
+$$;
+
+-- Refresh tokens live 7 days by default; the maintenance job keeps the window ahead in line with the setting.
+SELECT maintain_token_partitions(10);
+
+INSERT INTO tokens (id, token, is_active, user_id, exp, created_at)
+SELECT id, token, is_active, user_id, exp, created_at
+FROM tokens_unpartitioned
+WHERE exp > LOCALTIMESTAMP;
+
+DROP TABLE tokens_unpartitioned;
+ALTER SEQUENCE tokens_id_seq OWNED BY tokens.id;
@@ -0,0 +1,3 @@
+-- Revoking all tokens of a user and the ON DELETE CASCADE from users both look tokens up by user_id.
+-- Without an index they scan every partition of the table.
+CREATE INDEX tokens_user_id_idx ON tokens (user_id);
@@ -0,0 +1,9 @@
+-- Every login starts a token family; each rotation deactivates the presented token and inserts the next
+-- generation of the family with the same expiration. Deactivated generations are kept until they expire,
+-- so presenting one again is detected as reuse and revokes the whole family.
+-- Existing tokens each become the first generation of their own family.
+ALTER TABLE tokens
+    ADD COLUMN family_id UUID NOT NULL DEFAULT gen_random_uuid(),
+    ADD COLUMN generation INT NOT NULL DEFAULT 0;
+
+CREATE INDEX tokens_family_id_idx ON tokens (family_id);
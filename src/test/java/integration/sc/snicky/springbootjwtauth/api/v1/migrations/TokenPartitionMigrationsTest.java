@@ -0,0 +1,147 @@
+package integration.sc.snicky.springbootjwtauth.api.v1.migrations;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the migrations partitioning the tokens table, V7 to V12, against a real PostgreSQL on tokens stored by V6.
+ * Skipped when Docker is not available.
+ */
+@Tag("integration")
+@Testcontainers(disabledWithoutDocker = true)
+public class TokenPartitionMigrationsTest {
+    private static final String LAST_UNPARTITIONED_VERSION = "6";
+    private static final int MIGRATION_PREMAKE_DAYS = 10;
+    private static final String PAST_PARTITION = "tokens_p20000101";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.4-alpine");
+
+    /**
+     * Empties the database, so every test migrates from scratch.
+     */
+    @BeforeEach
+    void cleanDatabase() {
+        flyway(null).clean();
+    }
+
+    @Test
+    void testMigrationKeepsLiveTokensOnly() throws SQLException {
+        flyway(LAST_UNPARTITIONED_VERSION).migrate();
+        try (var connection = connect()) {
+            execute(connection, "INSERT INTO users (username, password, is_active) VALUES ('migrated', 'hash', TRUE)");
+            execute(connection, """
+                    INSERT INTO tokens (token, user_id, exp)
+                    SELECT sha256('live'::bytea), id, LOCALTIMESTAMP + INTERVAL '1 day' FROM users
+                    UNION ALL
+                    SELECT sha256('expired'::bytea), id, LOCALTIMESTAMP - INTERVAL '1 day' FROM users
+                    """);
+        }
+
+        flyway(null).migrate();
+
+        try (var connection = connect()) {
+            assertEquals("p", queryString(connection, "SELECT relkind::TEXT FROM pg_class WHERE relname = 'tokens'"));
+            assertEquals(List.of("live"), queryStrings(connection, """
+                    SELECT CASE WHEN token = sha256('live'::bytea) THEN 'live' ELSE 'expired' END FROM tokens
+                    """));
+            assertEquals(1, queryInt(connection, """
+                    SELECT count(*) FROM token_lookup l JOIN tokens t ON t.token = l.token AND t.exp = l.exp
+                    WHERE t.family_id IS NOT NULL AND t.generation = 0
+                    """));
+            assertEquals(MIGRATION_PREMAKE_DAYS + 1, queryInt(connection, """
+                    SELECT count(*) FROM pg_inherits JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                    WHERE inhparent = 'tokens'::regclass AND child.relname ~ '^tokens_p[0-9]{8}$'
+                    """));
+            assertTrue(queryStrings(connection, "SELECT indexname FROM pg_indexes WHERE tablename = 'tokens'")
+                    .containsAll(List.of("tokens_token_idx", "tokens_user_id_idx", "tokens_family_id_idx",
+                            "tokens_exp_id_idx")));
+            assertEquals("", queryString(connection,
+                    "SELECT coalesce(to_regprocedure('maintain_token_partitions(int)')::TEXT, '')"));
+        }
+    }
+
+    @Test
+    void testCreateAndDropPartitions() throws SQLException {
+        flyway(null).migrate();
+        try (var connection = connect()) {
+            assertEquals(1, queryInt(connection, "SELECT create_token_partitions(" + (MIGRATION_PREMAKE_DAYS + 1) + ")"));
+            assertEquals(0, queryInt(connection, "SELECT create_token_partitions(" + (MIGRATION_PREMAKE_DAYS + 1) + ")"));
+
+            execute(connection, "INSERT INTO users (username, password, is_active) VALUES ('expired', 'hash', TRUE)");
+            execute(connection, "CREATE TABLE " + PAST_PARTITION
+                    + " PARTITION OF tokens FOR VALUES FROM ('2000-01-01') TO ('2000-01-02')");
+            execute(connection, """
+                    INSERT INTO tokens (token, user_id, exp)
+                    SELECT sha256('expired'::bytea), id, TIMESTAMP '2000-01-01 12:00' FROM users
+                    """);
+            assertEquals(1, queryInt(connection, "SELECT count(*) FROM token_lookup"));
+            assertEquals(List.of(PAST_PARTITION), queryStrings(connection, "SELECT * FROM expired_token_partitions()"));
+
+            queryString(connection, "SELECT drop_token_partition('" + PAST_PARTITION + "')::TEXT");
+
+            assertEquals("", queryString(connection, "SELECT coalesce(to_regclass('" + PAST_PARTITION + "')::TEXT, '')"));
+            assertEquals(0, queryInt(connection, "SELECT count(*) FROM token_lookup"));
+            assertTrue(queryStrings(connection, "SELECT * FROM expired_token_partitions()").isEmpty());
+            assertThrows(SQLException.class, () -> queryString(connection,
+                    "SELECT drop_token_partition('tokens_p' || to_char(LOCALTIMESTAMP, 'YYYYMMDD'))::TEXT"));
+            assertFalse(queryStrings(connection, "SELECT relname::TEXT FROM pg_class WHERE relname ~ '^tokens_p'")
+                    .isEmpty());
+        }
+    }
+
+    private static Flyway flyway(String target) {
+        var configuration = Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migrations")
+                .cleanDisabled(false);
+        if (target != null) {
+            configuration.target(target);
+        }
+        return configuration.load();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int queryInt(Connection connection, String sql) throws SQLException {
+        return Integer.parseInt(queryString(connection, sql));
+    }
+
+    private static String queryString(Connection connection, String sql) throws SQLException {
+        return queryStrings(connection, sql).getFirst();
+    }
+
+    private static List<String> queryStrings(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement(); var rows = statement.executeQuery(sql)) {
+            var values = new ArrayList<String>();
+            while (rows.next()) {
+                values.add(rows.getString(1));
+            }
+            return values;
+        }
+    }
+}
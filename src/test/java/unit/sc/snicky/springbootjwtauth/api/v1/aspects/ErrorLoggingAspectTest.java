@@ -0,0 +1,63 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.aspects;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sc.snicky.springbootjwtauth.api.v1.aspects.ErrorLoggingAspect;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class ErrorLoggingAspectTest {
+    private static final long TEST_LOG_INTERVAL_MS = 60_000L;
+    private static final int TEST_REPEATS = 5;
+
+    @Mock
+    private JoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    @Test
+    void testBusinessExceptionHasNoStackTrace() {
+        var exception = new InvalidRefreshTokenException("Refresh token is invalid");
+
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void testBusinessExceptionIsLoggedWithoutResolvingHandler() {
+        var aspect = new ErrorLoggingAspect(TEST_LOG_INTERVAL_MS);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new InvalidRefreshTokenException("Refresh token is invalid")});
+        lenient().when(joinPoint.getSignature()).thenReturn(signature);
+
+        aspect.logBeforeErrorHandlingMethods(joinPoint);
+
+        verify(joinPoint, never()).getTarget();
+    }
+
+    @Test
+    void testRepeatedErrorIsLoggedOncePerInterval() {
+        var aspect = new ErrorLoggingAspect(TEST_LOG_INTERVAL_MS);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{new IllegalStateException("Database is down")});
+        when(joinPoint.getTarget()).thenReturn(this);
+        when(joinPoint.getSignature()).thenReturn(signature);
+
+        for (int i = 0; i < TEST_REPEATS; i++) {
+            aspect.logBeforeErrorHandlingMethods(joinPoint);
+        }
+
+        verify(joinPoint, times(1)).getTarget();
+    }
+}
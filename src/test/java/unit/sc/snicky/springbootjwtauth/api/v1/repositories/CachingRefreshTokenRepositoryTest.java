@@ -0,0 +1,147 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+import sc.snicky.springbootjwtauth.api.v1.repositories.BasicRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.CachingRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link CachingRefreshTokenRepository}.
+ */
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class CachingRefreshTokenRepositoryTest {
+    private static final int TEST_USER_ID = 7;
+    private static final long TEST_MAX_SIZE = 100L;
+    private static final Duration TEST_TTL = Duration.ofMinutes(1);
+
+    @Mock
+    private BasicRefreshTokenRepository delegate;
+
+    @Mock
+    private JpaUserRepository jpaUserRepository;
+
+    private CachingRefreshTokenRepository repository;
+    private User user;
+
+    /**
+     * Wraps the mocked repository in a cache without metrics and stubs the owner of the test tokens.
+     */
+    @BeforeEach
+    void setup() {
+        repository = new CachingRefreshTokenRepository(delegate, jpaUserRepository, TEST_MAX_SIZE, TEST_TTL, TEST_TTL, null);
+        user = User.builder().username("testuser").build();
+        user.setId(TEST_USER_ID);
+        lenient().when(jpaUserRepository.getReferenceById(TEST_USER_ID)).thenReturn(user);
+    }
+
+    @Test
+    void testFindByTokenIsCached() {
+        var token = buildToken();
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.of(token));
+
+        repository.findByToken(token.getToken());
+        var cached = repository.findByToken(token.getToken()).orElseThrow();
+
+        assertEquals(token.getExpiresAt(), cached.getExpiresAt());
+        assertSame(user, cached.getUser());
+        verify(delegate, times(1)).findByToken(token.getToken());
+    }
+
+    @Test
+    void testUnknownTokenIsCachedUntilSaved() {
+        var token = buildToken();
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.empty()).thenReturn(Optional.of(token));
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        repository.save(token);
+
+        assertTrue(repository.findByToken(token.getToken()).isPresent());
+        verify(delegate, times(2)).findByToken(token.getToken());
+    }
+
+    @Test
+    void testDeleteInvalidatesToken() {
+        var token = buildToken();
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.of(token)).thenReturn(Optional.empty());
+        repository.findByToken(token.getToken());
+
+        repository.delete(token.getToken());
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        verify(delegate).delete(token.getToken());
+    }
+
+    @Test
+    void testDeleteAllByUserIdInvalidatesUserTokens() {
+        var token = buildToken();
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.of(token)).thenReturn(Optional.empty());
+        repository.findByToken(token.getToken());
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        verify(delegate).deleteAllByUserId(TEST_USER_ID);
+    }
+
+    @Test
+    void testRotateInvalidatesOldToken() {
+        var token = buildToken();
+        ProtectedToken newToken = TokenHasher.hash(TokenUtils.generateToken());
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.of(token)).thenReturn(Optional.empty());
+        when(delegate.rotate(token.getToken(), newToken)).thenReturn(Optional.of(token));
+        repository.findByToken(token.getToken());
+
+        repository.rotate(token.getToken(), newToken);
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+    }
+
+    @Test
+    void testRevokeFamilyInvalidatesRevokedTokens() {
+        var token = buildToken();
+        ProtectedToken reusedToken = TokenHasher.hash(TokenUtils.generateToken());
+        when(delegate.findByToken(token.getToken())).thenReturn(Optional.of(token)).thenReturn(Optional.empty());
+        when(delegate.revokeFamilyOf(reusedToken)).thenReturn(List.of(token.getToken()));
+        repository.findByToken(token.getToken());
+
+        repository.revokeFamilyOf(reusedToken);
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+    }
+
+    private BasicRefreshToken buildToken() {
+        return BasicRefreshToken.builder()
+                .token(TokenHasher.hash(TokenUtils.generateToken()))
+                .user(user)
+                .isActive(true)
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+                .createdAt(Instant.now())
+                .build();
+    }
+}
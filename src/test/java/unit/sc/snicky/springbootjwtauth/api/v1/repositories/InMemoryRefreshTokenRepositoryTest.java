@@ -0,0 +1,223 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.repositories.InMemoryRefreshTokenRepositoryImpl;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Tests for {@link InMemoryRefreshTokenRepositoryImpl}.
+ */
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class InMemoryRefreshTokenRepositoryTest {
+    private static final int TEST_USER_ID = 7;
+    private static final long TEST_SWEEP_TICK_MS = 10L;
+    private static final long TEST_SNAPSHOT_INTERVAL_MS = 60_000L;
+    private static final long TEST_SHORT_LIFETIME_MS = 20L;
+    private static final long TEST_SWEEP_WAIT_MS = 50L;
+    private static final int TEST_CONCURRENT_SAVES = 20_000;
+    private static final int TEST_MAX_SESSIONS = 2;
+
+    @Mock
+    private JpaUserRepository jpaUserRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    private InMemoryRefreshTokenRepositoryImpl repository;
+    private User user;
+
+    /**
+     * Creates the repository without a snapshot and stubs the owner of the test tokens.
+     */
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryRefreshTokenRepositoryImpl(jpaUserRepository, TEST_SWEEP_TICK_MS, null,
+                TEST_SNAPSHOT_INTERVAL_MS);
+        user = User.builder().username("testuser").build();
+        user.setId(TEST_USER_ID);
+        lenient().when(jpaUserRepository.getReferenceById(TEST_USER_ID)).thenReturn(user);
+    }
+
+    /**
+     * Stops the background jobs of the repository.
+     */
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void testSaveAndFindByToken() {
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+        var token = buildToken(expiresAt);
+
+        repository.save(token);
+        var found = repository.findByToken(token.getToken()).orElseThrow();
+
+        assertEquals(token.getToken(), found.getToken());
+        assertSame(user, found.getUser());
+        assertEquals(expiresAt, found.getExpiresAt());
+        assertTrue(found.getIsActive());
+    }
+
+    @Test
+    void testDeleteAllByUserId() {
+        var first = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var second = buildToken(Instant.now().plus(2, ChronoUnit.HOURS));
+        repository.save(first);
+        repository.save(second);
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+
+        assertTrue(repository.findByToken(first.getToken()).isEmpty());
+        assertTrue(repository.findByToken(second.getToken()).isEmpty());
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void testDeleteAllByUserIdConcurrentWithSaves() throws Exception {
+        var saver = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < TEST_CONCURRENT_SAVES; i++) {
+                repository.save(buildToken(Instant.now().plus(1, ChronoUnit.HOURS)));
+            }
+        });
+        while (!saver.isDone()) {
+            repository.deleteAllByUserId(TEST_USER_ID);
+        }
+        saver.get();
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void testRotate() {
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+        var oldToken = buildToken(expiresAt);
+        var newToken = TokenHasher.hash(TokenUtils.generateToken());
+        repository.save(oldToken);
+
+        var rotated = repository.rotate(oldToken.getToken(), newToken).orElseThrow();
+
+        assertEquals(newToken, rotated.getToken());
+        assertEquals(expiresAt, rotated.getExpiresAt());
+        assertFalse(repository.findByToken(oldToken.getToken()).orElseThrow().getIsActive());
+        assertTrue(repository.findByToken(newToken).orElseThrow().getIsActive());
+        assertTrue(repository.rotate(oldToken.getToken(), TokenHasher.hash(TokenUtils.generateToken())).isEmpty());
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+        assertTrue(repository.findByToken(newToken).isEmpty());
+    }
+
+    @Test
+    void testRevokeFamilyOfReusedToken() {
+        var first = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var other = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var second = TokenHasher.hash(TokenUtils.generateToken());
+        var third = TokenHasher.hash(TokenUtils.generateToken());
+        repository.save(first);
+        repository.save(other);
+        repository.rotate(first.getToken(), second).orElseThrow();
+        repository.rotate(second, third).orElseThrow();
+
+        assertTrue(repository.revokeFamilyOf(third).isEmpty());
+        assertEquals(List.of(third), repository.revokeFamilyOf(first.getToken()));
+
+        assertTrue(repository.findByToken(third).isEmpty());
+        assertTrue(repository.findByToken(other.getToken()).orElseThrow().getIsActive());
+        assertTrue(repository.revokeFamilyOf(second).isEmpty());
+    }
+
+    @Test
+    void testSaveEvictingOldestKeepsNewestSessions() {
+        var now = Instant.now();
+        var oldest = buildToken(now.plus(1, ChronoUnit.HOURS));
+        oldest.setCreatedAt(now.minus(2, ChronoUnit.MINUTES));
+        var older = buildToken(now.plus(1, ChronoUnit.HOURS));
+        older.setCreatedAt(now.minus(1, ChronoUnit.MINUTES));
+        repository.save(oldest);
+        repository.save(older);
+        var newest = buildToken(now.plus(1, ChronoUnit.HOURS));
+
+        var evicted = repository.saveEvictingOldest(newest, TEST_MAX_SESSIONS);
+
+        assertEquals(List.of(oldest.getToken()), evicted);
+        assertTrue(repository.findByToken(oldest.getToken()).isEmpty());
+        assertTrue(repository.findByToken(older.getToken()).isPresent());
+        assertTrue(repository.findByToken(newest.getToken()).isPresent());
+        assertEquals(2, repository.size());
+        assertTrue(repository.saveEvictingOldest(buildToken(now.plus(1, ChronoUnit.HOURS)), TEST_MAX_SESSIONS + 1).isEmpty());
+    }
+
+    @Test
+    void testExpiredTokensAreSwept() throws InterruptedException {
+        var token = buildToken(Instant.now().plusMillis(TEST_SHORT_LIFETIME_MS));
+        repository.save(token);
+
+        Thread.sleep(TEST_SWEEP_WAIT_MS);
+        repository.sweep();
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void testSnapshotSurvivesRestart() {
+        var snapshot = tempDir.resolve("refresh-tokens.bin");
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+        var token = buildToken(expiresAt);
+        var persistent = new InMemoryRefreshTokenRepositoryImpl(jpaUserRepository, TEST_SWEEP_TICK_MS, snapshot,
+                TEST_SNAPSHOT_INTERVAL_MS);
+        var rotatedToken = TokenHasher.hash(TokenUtils.generateToken());
+        persistent.save(token);
+        persistent.rotate(token.getToken(), rotatedToken).orElseThrow();
+        persistent.close();
+
+        var restored = new InMemoryRefreshTokenRepositoryImpl(jpaUserRepository, TEST_SWEEP_TICK_MS, snapshot,
+                TEST_SNAPSHOT_INTERVAL_MS);
+        try {
+            var found = restored.findByToken(rotatedToken).orElseThrow();
+            assertEquals(expiresAt, found.getExpiresAt());
+            assertSame(user, found.getUser());
+            assertFalse(restored.findByToken(token.getToken()).orElseThrow().getIsActive());
+            assertEquals(List.of(rotatedToken), restored.revokeFamilyOf(token.getToken()));
+        } finally {
+            restored.close();
+        }
+    }
+
+    private BasicRefreshToken buildToken(Instant expiresAt) {
+        return BasicRefreshToken.builder()
+                .token(TokenHasher.hash(TokenUtils.generateToken()))
+                .user(user)
+                .isActive(true)
+                .expiresAt(expiresAt)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.JpaRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.mappers.JpaRefreshTokenMapperImpl;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.PostgresRefreshTokenRepositoryImpl;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PostgresRefreshTokenRepositoryImpl}.
+ */
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class PostgresRefreshTokenRepositoryTest {
+    private static final int TEST_MAX_SESSIONS = 5;
+
+    @Mock
+    private JpaRefreshTokenRepository jpaRefreshTokenRepository;
+
+    private PostgresRefreshTokenRepositoryImpl repository;
+
+    /**
+     * Creates the repository before each test.
+     */
+    @BeforeEach
+    void setup() {
+        repository = new PostgresRefreshTokenRepositoryImpl(jpaRefreshTokenRepository, new JpaRefreshTokenMapperImpl());
+    }
+
+    @Test
+    void testRotateUsesSingleStatement() {
+        var oldToken = TokenHasher.hash(TokenUtils.generateToken());
+        var newToken = TokenHasher.hash(TokenUtils.generateToken());
+        var user = User.builder().username("testuser").build();
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        var rotated = JpaRefreshToken.builder().token(newToken).isActive(true).user(user).exp(expiresAt).build();
+        when(jpaRefreshTokenRepository.rotate(oldToken, newToken)).thenReturn(Optional.of(rotated));
+
+        var result = repository.rotate(oldToken, newToken).orElseThrow();
+
+        assertEquals(newToken, result.getToken());
+        assertSame(user, result.getUser());
+        assertEquals(expiresAt, result.getExpiresAt());
+        verify(jpaRefreshTokenRepository, never()).findByToken(oldToken);
+        verify(jpaRefreshTokenRepository, never()).deleteByToken(oldToken);
+    }
+
+    @Test
+    void testRotateWithUnknownToken() {
+        var oldToken = TokenHasher.hash(TokenUtils.generateToken());
+        var newToken = TokenHasher.hash(TokenUtils.generateToken());
+        when(jpaRefreshTokenRepository.rotate(oldToken, newToken)).thenReturn(Optional.empty());
+
+        assertTrue(repository.rotate(oldToken, newToken).isEmpty());
+    }
+
+    @Test
+    void testSaveEvictingOldestUsesSingleStatement() {
+        var user = User.builder().username("testuser").build();
+        user.setId(1);
+        var token = BasicRefreshToken.builder()
+                .token(TokenHasher.hash(TokenUtils.generateToken()))
+                .user(user)
+                .expiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+                .build();
+        var evicted = List.of(TokenHasher.hash(TokenUtils.generateToken()));
+        when(jpaRefreshTokenRepository.insertEvictingOldest(token.getToken(), 1, token.getExpiresAt(), TEST_MAX_SESSIONS))
+                .thenReturn(evicted);
+
+        assertEquals(evicted, repository.saveEvictingOldest(token, TEST_MAX_SESSIONS));
+        verify(jpaRefreshTokenRepository, never()).save(any());
+    }
+}
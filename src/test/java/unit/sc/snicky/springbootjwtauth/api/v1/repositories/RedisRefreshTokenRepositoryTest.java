@@ -0,0 +1,220 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.repositories;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.RedisRefreshTokenRepositoryImpl;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Tests for {@link RedisRefreshTokenRepositoryImpl} against an embedded Redis server.
+ */
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class RedisRefreshTokenRepositoryTest {
+    private static final int TEST_USER_ID = 7;
+    private static final long TEST_TTL_SECONDS = 3600L;
+    private static final long TEST_MIN_TTL_SECONDS = 3500L;
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @Mock
+    private JpaUserRepository jpaUserRepository;
+
+    private RedisRefreshTokenRepositoryImpl repository;
+    private User user;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (var socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    /**
+     * Empties Redis and creates the repository and its user before each test.
+     */
+    @BeforeEach
+    void setup() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+        repository = new RedisRefreshTokenRepositoryImpl(redisTemplate, jpaUserRepository);
+        user = User.builder().username("testuser").build();
+        user.setId(TEST_USER_ID);
+        lenient().when(jpaUserRepository.getReferenceById(TEST_USER_ID)).thenReturn(user);
+    }
+
+    @Test
+    void testSaveAndFindByToken() {
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+        var token = buildToken(expiresAt);
+
+        repository.save(token);
+        var found = repository.findByToken(token.getToken()).orElseThrow();
+
+        assertEquals(token.getToken(), found.getToken());
+        assertSame(user, found.getUser());
+        assertEquals(expiresAt, found.getExpiresAt());
+        assertTrue(found.getIsActive());
+        var ttl = redisTemplate.getExpire("refresh_token:" + encoded(token.getToken()));
+        assertTrue(ttl > TEST_MIN_TTL_SECONDS && ttl <= TEST_TTL_SECONDS);
+    }
+
+    @Test
+    void testDelete() {
+        var token = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        repository.save(token);
+
+        repository.delete(token.getToken());
+
+        assertTrue(repository.findByToken(token.getToken()).isEmpty());
+        assertEquals(0L, redisTemplate.opsForZSet().zCard("refresh_tokens:user:" + TEST_USER_ID));
+    }
+
+    @Test
+    void testDeleteAllByUserId() {
+        var first = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var second = buildToken(Instant.now().plus(2, ChronoUnit.HOURS));
+        repository.save(first);
+        repository.save(second);
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+
+        assertTrue(repository.findByToken(first.getToken()).isEmpty());
+        assertTrue(repository.findByToken(second.getToken()).isEmpty());
+        assertFalse(redisTemplate.hasKey("refresh_tokens:user:" + TEST_USER_ID));
+    }
+
+    @Test
+    void testRotate() {
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.MILLIS);
+        var oldToken = buildToken(expiresAt);
+        var newToken = TokenHasher.hash(TokenUtils.generateToken());
+        repository.save(oldToken);
+
+        var rotated = repository.rotate(oldToken.getToken(), newToken).orElseThrow();
+
+        assertEquals(newToken, rotated.getToken());
+        assertEquals(expiresAt, rotated.getExpiresAt());
+        assertFalse(repository.findByToken(oldToken.getToken()).orElseThrow().getIsActive());
+        assertTrue(repository.findByToken(newToken).orElseThrow().getIsActive());
+        assertTrue(repository.rotate(oldToken.getToken(), TokenHasher.hash(TokenUtils.generateToken())).isEmpty());
+
+        repository.deleteAllByUserId(TEST_USER_ID);
+        assertTrue(repository.findByToken(newToken).isEmpty());
+    }
+
+    @Test
+    void testRevokeFamilyOfReusedToken() {
+        var first = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var other = buildToken(Instant.now().plus(1, ChronoUnit.HOURS));
+        var second = TokenHasher.hash(TokenUtils.generateToken());
+        var third = TokenHasher.hash(TokenUtils.generateToken());
+        repository.save(first);
+        repository.save(other);
+        repository.rotate(first.getToken(), second).orElseThrow();
+        repository.rotate(second, third).orElseThrow();
+
+        assertTrue(repository.revokeFamilyOf(third).isEmpty());
+        assertEquals(List.of(third), repository.revokeFamilyOf(first.getToken()));
+
+        assertTrue(repository.findByToken(third).isEmpty());
+        assertTrue(repository.findByToken(other.getToken()).orElseThrow().getIsActive());
+        assertTrue(repository.revokeFamilyOf(second).isEmpty());
+    }
+
+    @Test
+    void testRevokeFamilyOfLegacyValueRevokesNothing() {
+        var token = TokenHasher.hash(TokenUtils.generateToken());
+        var expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        redisTemplate.opsForValue().set("refresh_token:" + encoded(token),
+                TEST_USER_ID + ":" + expiresAt.toEpochMilli() + ":" + Instant.now().toEpochMilli());
+
+        assertTrue(repository.findByToken(token).orElseThrow().getIsActive());
+        assertTrue(repository.revokeFamilyOf(token).isEmpty());
+        assertTrue(repository.rotate(token, TokenHasher.hash(TokenUtils.generateToken())).isPresent());
+        assertFalse(repository.findByToken(token).orElseThrow().getIsActive());
+    }
+
+    @Test
+    void testSaveEvictingOldest() {
+        var now = Instant.now();
+        var oldest = buildToken(now.plus(1, ChronoUnit.HOURS), now.minus(2, ChronoUnit.MINUTES));
+        var older = buildToken(now.plus(1, ChronoUnit.HOURS), now.minus(1, ChronoUnit.MINUTES));
+        repository.save(oldest);
+        repository.save(older);
+        var newest = buildToken(now.plus(1, ChronoUnit.HOURS), now);
+
+        var evicted = repository.saveEvictingOldest(newest, 2);
+
+        assertEquals(List.of(oldest.getToken()), evicted);
+        assertTrue(repository.findByToken(oldest.getToken()).isEmpty());
+        assertTrue(repository.findByToken(older.getToken()).isPresent());
+        assertTrue(repository.findByToken(newest.getToken()).isPresent());
+        assertEquals(2L, redisTemplate.opsForZSet().zCard("refresh_tokens:user:" + TEST_USER_ID));
+        assertTrue(repository.saveEvictingOldest(buildToken(now.plus(1, ChronoUnit.HOURS), now), 2)
+                .contains(older.getToken()));
+    }
+
+    private BasicRefreshToken buildToken(Instant expiresAt) {
+        return buildToken(expiresAt, Instant.now());
+    }
+
+    private BasicRefreshToken buildToken(Instant expiresAt, Instant createdAt) {
+        return BasicRefreshToken.builder()
+                .token(TokenHasher.hash(TokenUtils.generateToken()))
+                .user(user)
+                .isActive(true)
+                .expiresAt(expiresAt)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static String encoded(ProtectedToken token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toBytes());
+    }
+}
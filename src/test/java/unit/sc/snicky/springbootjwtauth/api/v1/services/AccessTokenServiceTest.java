@@ -1,17 +1,46 @@
 package unit.sc.snicky.springbootjwtauth.api.v1.services;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.User;
 import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERolesClaimFormat;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ESigningAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.domain.events.SigningKeysRemovedEvent;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidAccessTokenException;
 import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
 
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.verify;
+
 /**
  * Unit tests for {@link AccessTokenServiceImpl}.
  * Tests token generation, extraction of roles and username, and token validation.
@@ -23,6 +52,11 @@ public class AccessTokenServiceTest {
     private static final String TEST_PASSWORD = "testpassword";
 
     private static final Long TEST_ACCESS_TOKEN_DURATION = 3600000L;
+    private static final String TEST_SIGNING_KEY = "test_jwt_signing_key_which_should_be_replaced";
+    private static final int TEST_UNKNOWN_ROLE_MASK = Integer.MAX_VALUE;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private AccessTokenServiceImpl accessTokenServiceImpl;
@@ -33,7 +67,7 @@ public class AccessTokenServiceTest {
      */
     @BeforeEach
     void setup() {
-        accessTokenServiceImpl.setJwtSigningKey("test_jwt_signing_key_which_should_be_replaced");
+        accessTokenServiceImpl.setJwtSigningKey(TEST_SIGNING_KEY);
         accessTokenServiceImpl.setAccessTokenDurationMs(TEST_ACCESS_TOKEN_DURATION); // 1 hour
     }
 
@@ -79,6 +113,60 @@ public class AccessTokenServiceTest {
         Assertions.assertEquals(TEST_USERNAME, username);
     }
 
+    /**
+     * Tests that a single verification of a valid JWT token exposes all claims.
+     */
+    @Test
+    void testVerify() {
+        var token = buildDefaultToken();
+
+        var verified = accessTokenServiceImpl.verify(token);
+
+        Assertions.assertEquals(TEST_USERNAME, verified.subject());
+        Assertions.assertEquals(Set.of(ERole.USER, ERole.ADMIN), verified.roles());
+        Assertions.assertNotNull(verified.issuedAt());
+        Assertions.assertTrue(verified.expiresAt().isAfter(verified.issuedAt()));
+        Assertions.assertEquals(2, verified.authorities().size());
+    }
+
+    /**
+     * Tests that tokens issued with the compact role bitmask claim carry the same roles,
+     * and that tokens issued with the role list are still accepted afterwards.
+     */
+    @Test
+    void testVerifyWithRoleMaskClaim() {
+        var listToken = buildDefaultToken();
+        accessTokenServiceImpl.setRolesClaimFormat(ERolesClaimFormat.MASK);
+        var maskToken = buildDefaultToken();
+
+        Assertions.assertTrue(maskToken.length() < listToken.length());
+        Assertions.assertEquals(Set.of(ERole.USER, ERole.ADMIN), accessTokenServiceImpl.verify(maskToken).roles());
+        Assertions.assertEquals(Set.of(ERole.USER, ERole.ADMIN), accessTokenServiceImpl.verify(listToken).roles());
+    }
+
+    /**
+     * Tests that a correctly signed token without any roles claim is rejected as an invalid access token.
+     */
+    @Test
+    void testVerifyWithoutRolesIsRejected() {
+        var token = signedToken(Map.of());
+
+        Assertions.assertThrows(InvalidAccessTokenException.class, () -> accessTokenServiceImpl.verify(token));
+    }
+
+    /**
+     * Tests that a correctly signed token with an unknown role, in either roles claim, is rejected
+     * as an invalid access token.
+     */
+    @Test
+    void testVerifyWithUnknownRoleIsRejected() {
+        var listToken = signedToken(Map.of(AccessTokenServiceImpl.ROLES_CLAIM, List.of("ROLE_ROOT")));
+        var maskToken = signedToken(Map.of(AccessTokenServiceImpl.ROLE_MASK_CLAIM, TEST_UNKNOWN_ROLE_MASK));
+
+        Assertions.assertThrows(InvalidAccessTokenException.class, () -> accessTokenServiceImpl.verify(listToken));
+        Assertions.assertThrows(InvalidAccessTokenException.class, () -> accessTokenServiceImpl.verify(maskToken));
+    }
+
     /**
      * Tests validation of a valid JWT token.
      */
@@ -102,4 +190,125 @@ public class AccessTokenServiceTest {
 
         Assertions.assertThrows(ExpiredJwtException.class, () -> accessTokenServiceImpl.isValid(token));
     }
+
+    /**
+     * Tests that replacing the signing secret rebuilds the key material,
+     * so tokens signed with the previous secret are rejected.
+     * Expects {@link SignatureException} to be thrown.
+     */
+    @Test
+    void testSigningKeyChangeRebuildsKeyMaterial() {
+        var token = buildDefaultToken();
+        accessTokenServiceImpl.setJwtSigningKey("another_jwt_signing_key_which_should_be_replaced");
+
+        Assertions.assertThrows(SignatureException.class, () -> accessTokenServiceImpl.extractUsername(token));
+        Assertions.assertEquals(TEST_USERNAME, accessTokenServiceImpl.extractUsername(buildDefaultToken()));
+    }
+
+    /**
+     * Tests that tokens signed with an asymmetric key carry a {@code kid} header
+     * and can be verified with nothing but the published JWK Set.
+     *
+     * @param algorithm the asymmetric signing algorithm under test
+     */
+    @ParameterizedTest
+    @EnumSource(value = ESigningAlgorithm.class, names = {"ES256", "ED25519"})
+    void testAsymmetricSigningIsVerifiableWithPublishedKeys(ESigningAlgorithm algorithm) {
+        accessTokenServiceImpl.setSigningAlgorithm(algorithm);
+        var token = buildDefaultToken();
+
+        var jwkSetJson = accessTokenServiceImpl.publicJwkSet();
+        var jwk = Jwks.setParser().build().parse(jwkSetJson).getKeys().iterator().next();
+        var jws = Jwts.parser()
+                .verifyWith((PublicKey) jwk.toKey())
+                .build()
+                .parseSignedClaims(token);
+
+        Assertions.assertFalse(jwkSetJson.contains("\"d\""));
+        Assertions.assertEquals(jwk.getId(), jws.getHeader().getKeyId());
+        Assertions.assertEquals(TEST_USERNAME, jws.getPayload().getSubject());
+        Assertions.assertEquals(Set.of(ERole.USER, ERole.ADMIN), accessTokenServiceImpl.verify(token).roles());
+    }
+
+    /**
+     * Tests that the shared HMAC secret is never published.
+     */
+    @Test
+    void testHmacSigningPublishesNoKeys() {
+        Assertions.assertEquals("{\"keys\":[]}", accessTokenServiceImpl.publicJwkSet());
+    }
+
+    /**
+     * Tests a zero-downtime key rotation with a reloadable keyring:
+     * tokens of a demoted key stay valid while new tokens are signed with the new active key,
+     * and removing the old key rejects its tokens and publishes a {@link SigningKeysRemovedEvent}.
+     *
+     * @param keyringDir the directory of the keyring file
+     */
+    @Test
+    void testKeyringRotation(@TempDir Path keyringDir) throws IOException {
+        var oldKey = Jwts.SIG.HS256.key().build();
+        var newKey = Jwts.SIG.HS256.key().build();
+        var keyringFile = keyringDir.resolve("keyring.json");
+        Files.writeString(keyringFile, jwkSet(secretJwk("old", oldKey, true)));
+        accessTokenServiceImpl.setKeyringPath(keyringFile.toString());
+        accessTokenServiceImpl.initKeyMaterial();
+        var oldToken = buildDefaultToken();
+
+        Files.writeString(keyringFile, jwkSet(secretJwk("old", oldKey, false), secretJwk("new", newKey, true)));
+        accessTokenServiceImpl.reloadKeyring();
+        var newToken = buildDefaultToken();
+
+        Assertions.assertEquals(TEST_USERNAME, accessTokenServiceImpl.verify(oldToken).subject());
+        Assertions.assertEquals(TEST_USERNAME, accessTokenServiceImpl.verify(newToken).subject());
+        Assertions.assertEquals("new", Jwts.parser().verifyWith(newKey).build()
+                .parseSignedClaims(newToken).getHeader().getKeyId());
+
+        Files.writeString(keyringFile, jwkSet(secretJwk("new", newKey, true)));
+        accessTokenServiceImpl.reloadKeyring();
+
+        Assertions.assertThrows(InvalidKeyException.class, () -> accessTokenServiceImpl.verify(oldToken));
+        Assertions.assertEquals(TEST_USERNAME, accessTokenServiceImpl.verify(newToken).subject());
+        verify(eventPublisher).publishEvent(new SigningKeysRemovedEvent(Set.of("old")));
+    }
+
+    /**
+     * Tests that a broken keyring file is ignored on reload and the current keys stay in use.
+     *
+     * @param keyringDir the directory of the keyring file
+     */
+    @Test
+    void testKeyringReloadKeepsKeysOnInvalidFile(@TempDir Path keyringDir) throws IOException {
+        var keyringFile = keyringDir.resolve("keyring.json");
+        Files.writeString(keyringFile, jwkSet(secretJwk("key", Jwts.SIG.HS256.key().build(), true)));
+        accessTokenServiceImpl.setKeyringPath(keyringFile.toString());
+        accessTokenServiceImpl.initKeyMaterial();
+        var token = buildDefaultToken();
+
+        Files.writeString(keyringFile, "{\"keys\":[");
+        accessTokenServiceImpl.reloadKeyring();
+
+        Assertions.assertEquals(TEST_USERNAME, accessTokenServiceImpl.verify(token).subject());
+    }
+
+    private static String signedToken(Map<String, ?> claims) {
+        var now = Instant.now();
+        return Jwts.builder()
+                .claims(claims)
+                .subject(TEST_USERNAME)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plusMillis(TEST_ACCESS_TOKEN_DURATION)))
+                .signWith(Keys.hmacShaKeyFor(TEST_SIGNING_KEY.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static String secretJwk(String keyId, SecretKey key, boolean signing) {
+        var builder = Jwks.builder().key(key).id(keyId);
+        Jwk<?> jwk = signing ? builder.operations().add(Jwks.OP.SIGN).and().build() : builder.build();
+        return Jwks.UNSAFE_JSON(jwk);
+    }
+
+    private static String jwkSet(String... jwks) {
+        return "{\"keys\":[" + String.join(",", jwks) + "]}";
+    }
 }
@@ -16,11 +16,11 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetails;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetailsAdaptor;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.Role;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.NonProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.PasswordOrUsernameIsInvalidException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserAlreadyExistException;
-import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
 import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
 import sc.snicky.springbootjwtauth.api.v1.services.AuthServiceImpl;
 import sc.snicky.springbootjwtauth.api.v1.services.RefreshTokenService;
@@ -29,13 +29,17 @@ import sc.snicky.springbootjwtauth.api.v1.services.UserService;
 import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
 
 import java.time.Instant;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
@@ -80,7 +84,7 @@ public class AuthServiceTest {
     void testRegisterWithSuccess() {
         doNothing().when(userService).saveUser(any(), any(ERole.class));
         var token = buildToken(buildUser());
-        when(refreshTokenService.generate(isNull(Integer.class))).thenReturn(token);
+        when(refreshTokenService.generate(any(UserPrincipal.class))).thenReturn(token);
 
         var tokenPair = authService.register(TEST_EMAIL, TEST_PASSWORD);
 
@@ -91,7 +95,7 @@ public class AuthServiceTest {
         assertEquals(buildUser().getUsername(), accessTokenService.extractUserDetails(tokenPair.accessToken()).getUsername());
 
         verify(userService).saveUser(any(), any(ERole.class));
-        verify(refreshTokenService).generate(isNull(Integer.class));
+        verify(refreshTokenService).generate(any(UserPrincipal.class));
     }
 
     @Test
@@ -107,9 +111,9 @@ public class AuthServiceTest {
     @Test
     void testLoginWithSuccess() {
         var user = buildUser();
-        when(userService.getUserByUsername(TEST_EMAIL)).thenReturn(user);
+        when(userService.findActiveUserByUsername(TEST_EMAIL)).thenReturn(Optional.of(user));
         var token = buildToken(user);
-        when(refreshTokenService.generate(user.getId())).thenReturn(token);
+        when(refreshTokenService.generate(UserPrincipal.ofUser(user))).thenReturn(token);
 
         var tokenPair = authService.login(TEST_EMAIL, TEST_PASSWORD);
 
@@ -119,30 +123,45 @@ public class AuthServiceTest {
         assertDoesNotThrow(() -> accessTokenService.extractUserDetails(tokenPair.accessToken()));
         assertEquals(user.getUsername(), accessTokenService.extractUserDetails(tokenPair.accessToken()).getUsername());
 
-        verify(userService).getUserByUsername(TEST_EMAIL);
-        verify(refreshTokenService).generate(user.getId());
+        verify(userService).findActiveUserByUsername(TEST_EMAIL);
+        verify(refreshTokenService).generate(UserPrincipal.ofUser(user));
+    }
+
+    @Test
+    void testLoginUpgradesOutdatedPasswordHash() {
+        var user = buildUser();
+        var outdatedHash = user.getPassword();
+        when(userService.findActiveUserByUsername(TEST_EMAIL)).thenReturn(Optional.of(user));
+        when(passwordEncoder.upgradeEncoding(outdatedHash)).thenReturn(true);
+        when(refreshTokenService.generate(UserPrincipal.ofUser(user))).thenReturn(buildToken(user));
+
+        authService.login(TEST_EMAIL, TEST_PASSWORD);
+
+        assertNotEquals(outdatedHash, user.getPassword());
+        assertTrue(passwordEncoder.matches(TEST_PASSWORD, user.getPassword()));
+        verify(userService).saveUser(user);
     }
 
     @Test
     void testLoginWithInvalidPassword() {
         var user = buildUser();
-        when(userService.getUserByUsername(TEST_EMAIL)).thenReturn(user);
+        when(userService.findActiveUserByUsername(TEST_EMAIL)).thenReturn(Optional.of(user));
 
         assertThrows(PasswordOrUsernameIsInvalidException.class,
                 () -> authService.login(TEST_EMAIL, "wrongpassword"));
 
-        verify(userService).getUserByUsername(TEST_EMAIL);
+        verify(userService).findActiveUserByUsername(TEST_EMAIL);
     }
 
     @Test
     void testLoginWithInvalidEmail() {
-        when(userService.getUserByUsername(TEST_EMAIL))
-                .thenThrow(UserNotFoundException.class);
+        when(userService.findActiveUserByUsername(TEST_EMAIL)).thenReturn(Optional.empty());
 
         assertThrows(PasswordOrUsernameIsInvalidException.class,
                 () -> authService.login(TEST_EMAIL, TEST_PASSWORD));
 
-        verify(userService).getUserByUsername(TEST_EMAIL);
+        verify(userService).findActiveUserByUsername(TEST_EMAIL);
+        verify(passwordEncoder).matches(eq(TEST_PASSWORD), startsWith("$2a$"));
     }
 
     private RefreshTokenDetails buildToken(User user) {
@@ -0,0 +1,108 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import sc.snicky.springbootjwtauth.api.v1.configs.properties.LoginRateLimitProperties;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.LoginRateLimitExceededException;
+import sc.snicky.springbootjwtauth.api.v1.services.LoginThrottle;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class LoginThrottleTest {
+    private static final Duration TEST_REFILL_PERIOD = Duration.ofMinutes(1);
+    private static final String TEST_LOAD_BALANCER = "10.0.0.100";
+    private static final int TEST_MAX_KEYS = 1000;
+    private static final int TEST_STRIPES = 4;
+    private static final int UNLIMITED = 100;
+    private static final int ATTEMPTS = 10;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Returns the test registry from the mocked registry provider.
+     */
+    @BeforeEach
+    void setup() {
+        when(meterRegistryProvider.getIfAvailable(any())).thenReturn(meterRegistry);
+    }
+
+    @Test
+    void testUsernameLimitAcrossAddresses() {
+        var throttle = buildThrottle(true, 2, UNLIMITED);
+
+        throttle.checkLoginAttempt("alice", "10.0.0.1");
+        throttle.checkLoginAttempt("alice", "10.0.0.2");
+        var exception = assertThrows(LoginRateLimitExceededException.class,
+                () -> throttle.checkLoginAttempt("alice", "10.0.0.3"));
+
+        assertTrue(exception.getRetryAfter().isPositive());
+        assertDoesNotThrow(() -> throttle.checkLoginAttempt("bob", "10.0.0.3"));
+        assertEquals(1.0, meterRegistry.get("login_throttle.rejected").tag("limit", "username").counter().count());
+    }
+
+    @Test
+    void testIpLimitAcrossUsernames() {
+        var throttle = buildThrottle(true, UNLIMITED, 2);
+
+        throttle.checkLoginAttempt("alice", "10.0.0.1");
+        throttle.checkLoginAttempt("bob", "10.0.0.1");
+
+        assertThrows(LoginRateLimitExceededException.class, () -> throttle.checkLoginAttempt("carol", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.checkLoginAttempt("carol", "10.0.0.2"));
+        assertEquals(1.0, meterRegistry.get("login_throttle.rejected").tag("limit", "ip").counter().count());
+    }
+
+    @Test
+    void testDisabledThrottleAllowsEverything() {
+        var throttle = buildThrottle(false, 1, 1);
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            assertDoesNotThrow(() -> throttle.checkLoginAttempt("alice", "10.0.0.1"));
+        }
+    }
+
+    @Test
+    void testIpLimitPerClientBehindLoadBalancer() {
+        var throttle = buildThrottle(true, UNLIMITED, 1);
+
+        throttle.checkLoginAttempt("alice", forwardedRequest("203.0.113.1"));
+
+        assertDoesNotThrow(() -> throttle.checkLoginAttempt("bob", forwardedRequest("203.0.113.2")));
+        assertThrows(LoginRateLimitExceededException.class,
+                () -> throttle.checkLoginAttempt("carol", forwardedRequest("198.51.100.7, 203.0.113.1")));
+    }
+
+    private LoginThrottle buildThrottle(boolean enabled, int usernameCapacity, int ipCapacity) {
+        var properties = new LoginRateLimitProperties(enabled, usernameCapacity, TEST_REFILL_PERIOD, ipCapacity,
+                TEST_REFILL_PERIOD, TEST_MAX_KEYS, TEST_STRIPES, List.of("10.0.0.0/8"));
+        return new LoginThrottle(properties, meterRegistryProvider);
+    }
+
+    private MockHttpServletRequest forwardedRequest(String forwardedFor) {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(TEST_LOAD_BALANCER);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
@@ -0,0 +1,89 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepositoryCustom.PurgedBatch;
+import sc.snicky.springbootjwtauth.api.v1.services.RefreshTokenPurgeJob;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenPurgeJobTest {
+    private static final int TEST_BATCH_SIZE = 2;
+    private static final int TEST_MAX_BATCHES = 10;
+    private static final LocalDateTime TEST_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime TEST_FIRST_BATCH_EXP = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TEST_SECOND_BATCH_EXP = LocalDateTime.of(2025, 1, 1, 0, 5);
+    private static final int TEST_FIRST_BATCH_LAST_ID = 9;
+    private static final int TEST_SECOND_BATCH_LAST_ID = 5;
+    private static final int TEST_PURGED = 3;
+
+    @Mock
+    private JpaRefreshTokenRepository jpaRefreshTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RefreshTokenPurgeJob purgeJob;
+
+    /**
+     * Creates the job without a pause between batches and with a fresh meter registry.
+     */
+    @BeforeEach
+    void setup() {
+        when(meterRegistryProvider.getIfAvailable(any())).thenReturn(meterRegistry);
+        purgeJob = new RefreshTokenPurgeJob(jpaRefreshTokenRepository, transactionManager,
+                TEST_BATCH_SIZE, 0, TEST_MAX_BATCHES, meterRegistryProvider);
+    }
+
+    @Test
+    void testPurgeWalksBatchesUntilNotFull() {
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(RefreshTokenPurgeJob.PURGE_LOCK_KEY)).thenReturn(true);
+        when(jpaRefreshTokenRepository.purgeExpiredBatch(TEST_START, 0, TEST_BATCH_SIZE))
+                .thenReturn(new PurgedBatch(2, TEST_FIRST_BATCH_EXP, TEST_FIRST_BATCH_LAST_ID));
+        when(jpaRefreshTokenRepository.purgeExpiredBatch(TEST_FIRST_BATCH_EXP, TEST_FIRST_BATCH_LAST_ID, TEST_BATCH_SIZE))
+                .thenReturn(new PurgedBatch(1, TEST_SECOND_BATCH_EXP, TEST_SECOND_BATCH_LAST_ID));
+
+        assertEquals(TEST_PURGED, purgeJob.purge());
+        assertEquals(TEST_PURGED, meterRegistry.get("refresh_tokens.purged").counter().count());
+    }
+
+    @Test
+    void testPurgeStopsWhenAnotherNodeHoldsTheLock() {
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(RefreshTokenPurgeJob.PURGE_LOCK_KEY)).thenReturn(false);
+
+        assertEquals(0, purgeJob.purge());
+        verify(jpaRefreshTokenRepository, never()).purgeExpiredBatch(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testPurgeStopsAtBatchLimit() {
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(RefreshTokenPurgeJob.PURGE_LOCK_KEY)).thenReturn(true);
+        when(jpaRefreshTokenRepository.purgeExpiredBatch(any(), anyInt(), anyInt()))
+                .thenReturn(new PurgedBatch(2, TEST_FIRST_BATCH_EXP, 1));
+
+        assertEquals(TEST_BATCH_SIZE * TEST_MAX_BATCHES, purgeJob.purge());
+    }
+}
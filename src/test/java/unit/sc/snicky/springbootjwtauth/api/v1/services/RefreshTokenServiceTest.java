@@ -12,15 +12,18 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetails;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.Role;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.InvalidRefreshTokenException;
 import sc.snicky.springbootjwtauth.api.v1.exceptions.business.users.UserNotFoundException;
 import sc.snicky.springbootjwtauth.api.v1.repositories.BasicRefreshTokenRepository;
 import sc.snicky.springbootjwtauth.api.v1.repositories.JpaUserRepository;
 import sc.snicky.springbootjwtauth.api.v1.services.RefreshTokenServiceImpl;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
 import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -30,7 +33,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +44,7 @@ import static org.mockito.Mockito.when;
 public class RefreshTokenServiceTest {
     private static final String TEST_EMAIL = "testuser";
     private static final String TEST_PASSWORD = "testpassword";
+    private static final int TEST_MAX_SESSIONS = 3;
     private final Long TEST_REFRESH_TOKEN_DURATION = 9000000L;
     private final String TEST_NON_PROTECTED_TOKEN = TokenUtils.generateToken();
     private final ProtectedToken TEST_PROTECTED_TOKEN = new ProtectedToken(TokenUtils.hashToken(TEST_NON_PROTECTED_TOKEN));
@@ -89,6 +95,34 @@ public class RefreshTokenServiceTest {
         assertThrows(UserNotFoundException.class, () -> refreshTokenServiceTest.generate(userId));
     }
 
+    @Test
+    void testGenerateRefreshTokenForPrincipalDoesNotLoadUser() {
+        var testUser = buildUser();
+        testUser.setId(1);
+        var principal = UserPrincipal.ofUser(testUser);
+        when(jpaUserRepository.getReferenceById(1)).thenReturn(testUser);
+
+        RefreshTokenDetails result = refreshTokenServiceTest.generate(principal);
+
+        assertEquals(testUser, result.getUser());
+        verify(jpaUserRepository, never()).findById(any());
+        verify(basicRefreshTokenRepository).save(any());
+    }
+
+    @Test
+    void testGenerateRefreshTokenWithSessionCapEvictsInSameWrite() {
+        var testUser = buildUser();
+        testUser.setId(1);
+        refreshTokenServiceTest.setMaxSessionsPerUser(TEST_MAX_SESSIONS);
+        when(jpaUserRepository.getReferenceById(1)).thenReturn(testUser);
+        when(basicRefreshTokenRepository.saveEvictingOldest(any(), eq(TEST_MAX_SESSIONS))).thenReturn(List.of(TEST_PROTECTED_TOKEN));
+
+        refreshTokenServiceTest.generate(UserPrincipal.ofUser(testUser));
+
+        verify(basicRefreshTokenRepository).saveEvictingOldest(any(), eq(TEST_MAX_SESSIONS));
+        verify(basicRefreshTokenRepository, never()).save(any());
+    }
+
     @Test
     void testIsValidWithSuccess() {
         var token = buildToken(buildUser());
@@ -135,24 +169,22 @@ public class RefreshTokenServiceTest {
     @Test
     void testRotateWithSuccess() {
         var testUser = buildUser();
-        var oldToken = buildToken(testUser);
-        when(basicRefreshTokenRepository.findByToken(TEST_PROTECTED_TOKEN)).thenReturn(Optional.of(oldToken));
-        doNothing().when(basicRefreshTokenRepository).delete(TEST_PROTECTED_TOKEN);
-        doNothing().when(basicRefreshTokenRepository).save(any());
+        var rotatedToken = buildToken(testUser);
+        when(basicRefreshTokenRepository.rotate(eq(TEST_PROTECTED_TOKEN), any())).thenReturn(Optional.of(rotatedToken));
 
         RefreshTokenDetails result = refreshTokenServiceTest.rotate(TEST_NON_PROTECTED_TOKEN);
 
         assertNotNull(result);
-        assertNotEquals(TEST_PROTECTED_TOKEN.getToken(), result.getToken().getToken());
+        assertNotEquals(TEST_NON_PROTECTED_TOKEN, result.getToken().getToken());
         assertEquals(testUser.getUsername(), result.getUser().getUsername());
-        assertEquals(oldToken.getExpiresAt(), result.getExpiry());
+        assertEquals(rotatedToken.getExpiresAt(), result.getExpiry());
 
-        verify(basicRefreshTokenRepository).delete(TEST_PROTECTED_TOKEN);
+        verify(basicRefreshTokenRepository).rotate(eq(TEST_PROTECTED_TOKEN), any());
     }
 
     @Test
     void testRotateWithRefreshTokenNotValidException() {
-        when(basicRefreshTokenRepository.findByToken(any())).thenReturn(Optional.empty());
+        when(basicRefreshTokenRepository.rotate(any(), any())).thenReturn(Optional.empty());
 
         assertThrows(
                 InvalidRefreshTokenException.class,
@@ -161,15 +193,47 @@ public class RefreshTokenServiceTest {
     }
 
     @Test
-    void testRotateWithRefreshTokenIsExpired() {
+    void testRotateWithReusedTokenRevokesFamily() {
+        var currentGeneration = TokenHasher.hash(TokenUtils.generateToken());
+        when(basicRefreshTokenRepository.rotate(eq(TEST_PROTECTED_TOKEN), any())).thenReturn(Optional.empty());
+        when(basicRefreshTokenRepository.revokeFamilyOf(TEST_PROTECTED_TOKEN)).thenReturn(List.of(currentGeneration));
+
+        assertThrows(
+                InvalidRefreshTokenException.class,
+                () -> refreshTokenServiceTest.rotate(TEST_NON_PROTECTED_TOKEN)
+        );
+        verify(basicRefreshTokenRepository).revokeFamilyOf(TEST_PROTECTED_TOKEN);
+    }
+
+    @Test
+    void testDefaultRotateReplacesToken() {
+        var testUser = buildUser();
+        var oldToken = buildToken(testUser);
+        var newProtectedToken = TokenHasher.hash(TokenUtils.generateToken());
+        when(basicRefreshTokenRepository.findByToken(TEST_PROTECTED_TOKEN)).thenReturn(Optional.of(oldToken));
+        when(basicRefreshTokenRepository.rotate(any(), any())).thenCallRealMethod();
+
+        var result = basicRefreshTokenRepository.rotate(TEST_PROTECTED_TOKEN, newProtectedToken);
+
+        assertTrue(result.isPresent());
+        assertEquals(newProtectedToken, result.get().getToken());
+        assertEquals(oldToken.getExpiresAt(), result.get().getExpiresAt());
+        verify(basicRefreshTokenRepository).delete(TEST_PROTECTED_TOKEN);
+        verify(basicRefreshTokenRepository).save(result.get());
+    }
+
+    @Test
+    void testDefaultRotateWithRefreshTokenIsExpired() {
         var token = buildToken(buildUser());
         token.setExpiresAt(Instant.now().minusSeconds(1));
         when(basicRefreshTokenRepository.findByToken(any())).thenReturn(Optional.of(token));
+        when(basicRefreshTokenRepository.rotate(any(), any())).thenCallRealMethod();
 
         assertThrows(
                 InvalidRefreshTokenException.class,
                 () -> refreshTokenServiceTest.rotate(TEST_NON_PROTECTED_TOKEN)
         );
+        verify(basicRefreshTokenRepository, never()).delete(any());
     }
 
     @Test
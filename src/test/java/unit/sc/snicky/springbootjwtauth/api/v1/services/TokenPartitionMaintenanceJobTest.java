@@ -0,0 +1,77 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepository;
+import sc.snicky.springbootjwtauth.api.v1.repositories.JpaRefreshTokenRepositoryCustom.PartitionChanges;
+import sc.snicky.springbootjwtauth.api.v1.services.TokenPartitionMaintenanceJob;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class TokenPartitionMaintenanceJobTest {
+    private static final long TEST_REFRESH_TOKEN_DURATION = 7L * 24 * 60 * 60 * 1000;
+    private static final long TEST_DROP_LOCK_TIMEOUT_MS = 1000L;
+    private static final int TEST_PREMAKE_DAYS = 10;
+    private static final String TEST_EXPIRED_PARTITION = "tokens_p20250101";
+    private static final String TEST_BUSY_PARTITION = "tokens_p20250102";
+
+    @Mock
+    private JpaRefreshTokenRepository jpaRefreshTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testMaintainCoversTokenLifetimeWithMargin() {
+        var job = new TokenPartitionMaintenanceJob(jpaRefreshTokenRepository, transactionManager,
+                TEST_REFRESH_TOKEN_DURATION, TEST_DROP_LOCK_TIMEOUT_MS);
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(TokenPartitionMaintenanceJob.MAINTENANCE_LOCK_KEY)).thenReturn(true);
+        when(jpaRefreshTokenRepository.createPartitions(TEST_PREMAKE_DAYS)).thenReturn(1);
+        when(jpaRefreshTokenRepository.findExpiredPartitions()).thenReturn(List.of(TEST_EXPIRED_PARTITION));
+
+        assertEquals(new PartitionChanges(1, 1), job.maintain());
+        verify(jpaRefreshTokenRepository).dropPartition(TEST_EXPIRED_PARTITION, Duration.ofMillis(TEST_DROP_LOCK_TIMEOUT_MS));
+    }
+
+    @Test
+    void testMaintainLeavesBusyPartitionsForALaterRun() {
+        var job = new TokenPartitionMaintenanceJob(jpaRefreshTokenRepository, transactionManager,
+                TEST_REFRESH_TOKEN_DURATION, TEST_DROP_LOCK_TIMEOUT_MS);
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(TokenPartitionMaintenanceJob.MAINTENANCE_LOCK_KEY)).thenReturn(true);
+        when(jpaRefreshTokenRepository.findExpiredPartitions()).thenReturn(List.of(TEST_BUSY_PARTITION, TEST_EXPIRED_PARTITION));
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jpaRefreshTokenRepository).dropPartition(eq(TEST_BUSY_PARTITION), any());
+
+        assertEquals(new PartitionChanges(0, 0), job.maintain());
+        verify(jpaRefreshTokenRepository, never()).dropPartition(eq(TEST_EXPIRED_PARTITION), any());
+    }
+
+    @Test
+    void testMaintainSkipsWhenAnotherNodeHoldsTheLock() {
+        var job = new TokenPartitionMaintenanceJob(jpaRefreshTokenRepository, transactionManager,
+                TEST_REFRESH_TOKEN_DURATION, TEST_DROP_LOCK_TIMEOUT_MS);
+        when(jpaRefreshTokenRepository.tryAdvisoryTransactionLock(TokenPartitionMaintenanceJob.MAINTENANCE_LOCK_KEY)).thenReturn(false);
+
+        assertNull(job.maintain());
+        verify(jpaRefreshTokenRepository, never()).createPartitions(anyInt());
+        verify(jpaRefreshTokenRepository, never()).findExpiredPartitions();
+    }
+}
@@ -11,11 +11,13 @@ import sc.snicky.springbootjwtauth.api.v1.domain.models.BasicRefreshToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.RefreshTokenDetailsAdaptor;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.Role;
 import sc.snicky.springbootjwtauth.api.v1.domain.models.User;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.UserPrincipal;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.NonProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
 import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenServiceImpl;
 import sc.snicky.springbootjwtauth.api.v1.services.RefreshTokenServiceImpl;
 import sc.snicky.springbootjwtauth.api.v1.services.TokensManagerImpl;
+import sc.snicky.springbootjwtauth.api.v1.services.UserService;
 import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
 
 import java.time.Instant;
@@ -42,6 +44,9 @@ public class TokensManagerTest {
     @Mock
     private AccessTokenServiceImpl accessTokenService;
 
+    @Mock
+    private UserService userService;
+
     @InjectMocks
     private TokensManagerImpl tokensManager;
 
@@ -51,7 +56,9 @@ public class TokensManagerTest {
         var user = buildUser();
         user.setId(1);
         var token = buildToken(user);
-        when(refreshTokenService.generate(1))
+        var principal = UserPrincipal.ofUser(user);
+        when(userService.getPrincipalById(1)).thenReturn(principal);
+        when(refreshTokenService.generate(principal))
                 .thenReturn(RefreshTokenDetailsAdaptor.ofToken(new NonProtectedToken(TEST_NON_PROTECTED_TOKEN), token));
 
         var result = tokensManager.generateTokens(1);
@@ -59,7 +66,7 @@ public class TokensManagerTest {
         assertNotNull(result);
         assertEquals(TEST_NON_PROTECTED_TOKEN, result.refreshToken());
 
-        verify(refreshTokenService).generate(1);
+        verify(refreshTokenService).generate(principal);
     }
 
     @Test
@@ -67,6 +74,7 @@ public class TokensManagerTest {
         var user = buildUser();
         user.setId(1);
         var newToken = buildToken(user);
+        when(userService.getPrincipalById(1)).thenReturn(UserPrincipal.ofUser(user));
         when(refreshTokenService.rotate(TEST_NON_PROTECTED_TOKEN))
                 .thenReturn(RefreshTokenDetailsAdaptor.ofToken(new NonProtectedToken(TEST_NON_PROTECTED_TOKEN), newToken));
 
@@ -0,0 +1,64 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sc.snicky.springbootjwtauth.api.v1.services.UnknownUsernameCache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class UnknownUsernameCacheTest {
+    private static final String TEST_USERNAME = "ghost";
+    private static final long TEST_MAX_SIZE = 100L;
+    private static final long TEST_TTL_MS = 60_000L;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Test
+    void testRecordedUsernameIsUnknownUntilInvalidated() {
+        var cache = new UnknownUsernameCache(true, TEST_MAX_SIZE, TEST_TTL_MS, meterRegistryProvider);
+        assertFalse(cache.isUnknown(TEST_USERNAME));
+
+        cache.recordUnknown(TEST_USERNAME);
+        assertTrue(cache.isUnknown(TEST_USERNAME));
+
+        cache.invalidate(TEST_USERNAME);
+        assertFalse(cache.isUnknown(TEST_USERNAME));
+    }
+
+    @Test
+    void testInvalidateAgainWhenTransactionCompletes() {
+        var cache = new UnknownUsernameCache(true, TEST_MAX_SIZE, TEST_TTL_MS, meterRegistryProvider);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(TEST_USERNAME);
+            cache.recordUnknown(TEST_USERNAME);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            assertFalse(cache.isUnknown(TEST_USERNAME));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDisabledCacheKnowsNothing() {
+        var cache = new UnknownUsernameCache(false, TEST_MAX_SIZE, TEST_TTL_MS, meterRegistryProvider);
+
+        cache.recordUnknown(TEST_USERNAME);
+
+        assertFalse(cache.isUnknown(TEST_USERNAME));
+    }
+}
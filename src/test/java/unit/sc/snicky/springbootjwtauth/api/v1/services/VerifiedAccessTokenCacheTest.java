@@ -0,0 +1,98 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.ERole;
+import sc.snicky.springbootjwtauth.api.v1.domain.models.VerifiedAccessToken;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.RoleAuthorities;
+import sc.snicky.springbootjwtauth.api.v1.services.AccessTokenService;
+import sc.snicky.springbootjwtauth.api.v1.services.VerifiedAccessTokenCache;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+public class VerifiedAccessTokenCacheTest {
+    private static final String TEST_TOKEN = "header.payload.signature";
+    private static final String TEST_USERNAME = "testuser";
+    private static final long TEST_MAX_SIZE = 100L;
+    private static final long TEST_TTL_SECONDS = 60L;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Test
+    void testVerifyWithCacheHit() {
+        var verified = buildVerifiedToken(Instant.now().plusSeconds(TEST_TTL_SECONDS));
+        when(accessTokenService.verify(TEST_TOKEN)).thenReturn(verified);
+        var cache = buildCache(true);
+
+        assertSame(verified, cache.verify(TEST_TOKEN));
+        assertSame(verified, cache.verify(TEST_TOKEN));
+
+        verify(accessTokenService, times(1)).verify(TEST_TOKEN);
+    }
+
+    @Test
+    void testVerifyWithExpiredEntryIsVerifiedAgain() {
+        var verified = buildVerifiedToken(Instant.now().minusSeconds(1));
+        when(accessTokenService.verify(TEST_TOKEN)).thenReturn(verified);
+        var cache = buildCache(true);
+
+        cache.verify(TEST_TOKEN);
+        cache.verify(TEST_TOKEN);
+
+        verify(accessTokenService, times(2)).verify(TEST_TOKEN);
+    }
+
+    @Test
+    void testVerifyWithInvalidTokenIsNotCached() {
+        when(accessTokenService.verify(TEST_TOKEN)).thenThrow(new MalformedJwtException("malformed"));
+        var cache = buildCache(true);
+
+        assertThrows(MalformedJwtException.class, () -> cache.verify(TEST_TOKEN));
+        assertThrows(MalformedJwtException.class, () -> cache.verify(TEST_TOKEN));
+
+        verify(accessTokenService, times(2)).verify(TEST_TOKEN);
+    }
+
+    @Test
+    void testVerifyWithCacheDisabled() {
+        var verified = buildVerifiedToken(Instant.now().plusSeconds(TEST_TTL_SECONDS));
+        when(accessTokenService.verify(TEST_TOKEN)).thenReturn(verified);
+        var cache = buildCache(false);
+
+        cache.verify(TEST_TOKEN);
+        cache.verify(TEST_TOKEN);
+
+        verify(accessTokenService, times(2)).verify(TEST_TOKEN);
+    }
+
+    private VerifiedAccessTokenCache buildCache(boolean enabled) {
+        return new VerifiedAccessTokenCache(accessTokenService, enabled, TEST_MAX_SIZE, meterRegistryProvider);
+    }
+
+    private VerifiedAccessToken buildVerifiedToken(Instant expiresAt) {
+        return VerifiedAccessToken.builder()
+                .subject(TEST_USERNAME)
+                .roleMask(RoleAuthorities.mask(ERole.USER))
+                .issuedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
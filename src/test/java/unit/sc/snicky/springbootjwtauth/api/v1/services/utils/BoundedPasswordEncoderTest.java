@@ -0,0 +1,117 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.exceptions.business.security.PasswordHashingOverloadedException;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.BoundedPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link BoundedPasswordEncoder}.
+ * Tests that hashing runs on the hashing pool and that a full queue is rejected right away.
+ */
+@Tag("unit")
+public class BoundedPasswordEncoderTest {
+    private static final Duration TEST_RETRY_AFTER = Duration.ofSeconds(2);
+    private static final long TEST_TIMEOUT_SECONDS = 5L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    /**
+     * Releases the blocked hashes and shuts the encoder down after each test.
+     */
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.close();
+    }
+
+    /**
+     * Tests that encode and matches run on a hashing thread and record the hash timer.
+     */
+    @Test
+    void testHashesOnHashingThread() {
+        encoder = new BoundedPasswordEncoder(new ThreadNameEncoder(), 1, 1, TEST_RETRY_AFTER, meterRegistry);
+
+        var encoded = encoder.encode("password");
+
+        assertTrue(encoded.startsWith("password-hashing-"));
+        assertTrue(encoder.matches("password", encoded));
+        assertNotEquals(Thread.currentThread().getName(), encoded);
+        assertEquals(2, meterRegistry.get("password_hashing.hash").timer().count());
+        assertEquals(2, meterRegistry.get("password_hashing.wait").timer().count());
+    }
+
+    /**
+     * Tests that a hash is rejected with the retry delay when the thread is busy and the queue is full.
+     */
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1, TEST_RETRY_AFTER, meterRegistry);
+        var running = CompletableFuture.runAsync(() -> encoder.encode("running"));
+        assertTrue(started.await(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        var queued = CompletableFuture.runAsync(() -> encoder.encode("queued"));
+        while (meterRegistry.get("password_hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        var exception = assertThrows(PasswordHashingOverloadedException.class, () -> encoder.matches("rejected", "x"));
+
+        assertEquals(TEST_RETRY_AFTER, exception.getRetryAfter());
+        assertEquals(1, meterRegistry.get("password_hashing.rejected").counter().count());
+        release.countDown();
+        running.get(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        queued.get(TEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Encoder returning the name of the thread it runs on.
+     */
+    private static final class ThreadNameEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return Thread.currentThread().getName().equals(encodedPassword);
+        }
+    }
+
+    /**
+     * Encoder blocking until the test releases it.
+     */
+    private final class BlockingEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
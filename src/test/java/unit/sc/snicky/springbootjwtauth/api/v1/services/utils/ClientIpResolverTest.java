@@ -0,0 +1,89 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.ClientIpResolver;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ClientIpResolver}.
+ * Tests that X-Forwarded-For is only trusted from the configured proxies.
+ */
+@Tag("unit")
+public class ClientIpResolverTest {
+    private static final String TEST_CLIENT = "203.0.113.1";
+    private static final String TEST_LOAD_BALANCER = "10.0.0.100";
+
+    private final ClientIpResolver resolver = new ClientIpResolver(List.of("10.0.0.0/8", "::1"));
+
+    /**
+     * Tests that a direct client is identified by its remote address, whatever it forwards.
+     */
+    @Test
+    void testUntrustedRemoteAddressIgnoresForwardedFor() {
+        var request = request("198.51.100.7", "203.0.113.9");
+
+        assertEquals("198.51.100.7", resolver.resolve(request));
+    }
+
+    /**
+     * Tests that a client behind the load balancer is identified by the address the load balancer forwards.
+     */
+    @Test
+    void testClientBehindTrustedProxy() {
+        assertEquals(TEST_CLIENT, resolver.resolve(request(TEST_LOAD_BALANCER, TEST_CLIENT)));
+    }
+
+    /**
+     * Tests that the entries a client prepends to X-Forwarded-For are ignored.
+     */
+    @Test
+    void testSpoofedEntriesAreIgnored() {
+        var request = request(TEST_LOAD_BALANCER, "1.1.1.1, not-an-ip, " + TEST_CLIENT);
+
+        assertEquals(TEST_CLIENT, resolver.resolve(request));
+    }
+
+    /**
+     * Tests that every trusted proxy of a chain is skipped, across repeated headers.
+     */
+    @Test
+    void testChainOfTrustedProxies() {
+        var request = request(TEST_LOAD_BALANCER, TEST_CLIENT + ", 10.1.0.1");
+        request.addHeader("X-Forwarded-For", "10.2.0.1");
+
+        assertEquals(TEST_CLIENT, resolver.resolve(request));
+    }
+
+    /**
+     * Tests that a request from a trusted proxy without X-Forwarded-For is identified by the proxy.
+     */
+    @Test
+    void testTrustedProxyWithoutForwardedFor() {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(TEST_LOAD_BALANCER);
+
+        assertEquals(TEST_LOAD_BALANCER, resolver.resolve(request));
+    }
+
+    /**
+     * Tests that no trusted proxies always resolve to the remote address.
+     */
+    @Test
+    void testNoTrustedProxies() {
+        var request = request(TEST_LOAD_BALANCER, TEST_CLIENT);
+
+        assertEquals(TEST_LOAD_BALANCER, new ClientIpResolver(List.of("")).resolve(request));
+    }
+
+    private MockHttpServletRequest request(String remoteAddress, String forwardedFor) {
+        var request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddress);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
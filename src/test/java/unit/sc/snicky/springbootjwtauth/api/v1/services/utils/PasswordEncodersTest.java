@@ -0,0 +1,66 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import sc.snicky.springbootjwtauth.api.v1.domain.enums.EPasswordHashingAlgorithm;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.PasswordEncoders;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PasswordEncoders}.
+ * Tests that hashes of every algorithm and cost keep verifying and are upgraded when they differ from the configuration.
+ */
+@Tag("unit")
+public class PasswordEncodersTest {
+    private static final String TEST_PASSWORD = "testpassword";
+    private static final int TEST_BCRYPT_STRENGTH = 4;
+    private static final int TEST_STRONGER_BCRYPT_STRENGTH = 5;
+    private static final int TEST_PBKDF2_ITERATIONS = 1000;
+    private static final int TEST_MORE_PBKDF2_ITERATIONS = 2000;
+
+    /**
+     * Tests that a hash without an algorithm prefix verifies as BCrypt and is upgraded.
+     */
+    @Test
+    void testLegacyBCryptHashMatchesAndIsUpgraded() {
+        var encoder = PasswordEncoders.create(EPasswordHashingAlgorithm.BCRYPT, TEST_BCRYPT_STRENGTH, TEST_PBKDF2_ITERATIONS);
+        var legacyHash = new BCryptPasswordEncoder(TEST_BCRYPT_STRENGTH).encode(TEST_PASSWORD);
+
+        assertTrue(encoder.matches(TEST_PASSWORD, legacyHash));
+        assertTrue(encoder.upgradeEncoding(legacyHash));
+        assertFalse(encoder.upgradeEncoding(encoder.encode(TEST_PASSWORD)));
+    }
+
+    /**
+     * Tests that a BCrypt hash of another cost, higher or lower, still verifies and is upgraded.
+     */
+    @Test
+    void testBCryptHashOfOtherCostIsUpgraded() {
+        var stronger = PasswordEncoders.create(EPasswordHashingAlgorithm.BCRYPT, TEST_STRONGER_BCRYPT_STRENGTH, TEST_PBKDF2_ITERATIONS)
+                .encode(TEST_PASSWORD);
+        var encoder = PasswordEncoders.create(EPasswordHashingAlgorithm.BCRYPT, TEST_BCRYPT_STRENGTH, TEST_PBKDF2_ITERATIONS);
+
+        assertTrue(encoder.matches(TEST_PASSWORD, stronger));
+        assertTrue(encoder.upgradeEncoding(stronger));
+    }
+
+    /**
+     * Tests that a PBKDF2 hash keeps verifying after the iterations change, and that switching algorithm upgrades it.
+     */
+    @Test
+    void testPbkdf2HashOfOtherIterationsMatchesAndIsUpgraded() {
+        var hash = PasswordEncoders.create(EPasswordHashingAlgorithm.PBKDF2, TEST_BCRYPT_STRENGTH, TEST_PBKDF2_ITERATIONS)
+                .encode(TEST_PASSWORD);
+        var encoder = PasswordEncoders.create(EPasswordHashingAlgorithm.PBKDF2, TEST_BCRYPT_STRENGTH, TEST_MORE_PBKDF2_ITERATIONS);
+
+        assertTrue(hash.startsWith("{pbkdf2}" + TEST_PBKDF2_ITERATIONS + "$"));
+        assertTrue(encoder.matches(TEST_PASSWORD, hash));
+        assertFalse(encoder.matches("wrongpassword", hash));
+        assertTrue(encoder.upgradeEncoding(hash));
+        assertTrue(PasswordEncoders.create(EPasswordHashingAlgorithm.BCRYPT, TEST_BCRYPT_STRENGTH, TEST_PBKDF2_ITERATIONS)
+                .upgradeEncoding(hash));
+    }
+}
@@ -0,0 +1,62 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.StripedRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link StripedRateLimiter}.
+ * Tests the token bucket of a key against a manual clock and the bound on tracked keys.
+ */
+@Tag("unit")
+public class StripedRateLimiterTest {
+    private static final int TEST_BURST = 3;
+    private static final Duration TEST_REFILL_PERIOD = Duration.ofSeconds(TEST_BURST);
+    private static final Duration HALF_PERMIT = Duration.ofMillis(500);
+    private static final int TEST_MAX_KEYS = 64;
+    private static final int TEST_STRIPES = 8;
+    private static final int TEST_KEYS = 10_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * Tests that a key gets its burst, is rejected with the time to the next permit, and refills over time.
+     */
+    @Test
+    void testBurstThenRefill() {
+        var limiter = new StripedRateLimiter(TEST_BURST, TEST_REFILL_PERIOD, TEST_MAX_KEYS, TEST_STRIPES, clock::get);
+
+        for (int i = 0; i < TEST_BURST; i++) {
+            assertEquals(0, limiter.tryAcquire("alice"));
+        }
+        assertEquals(Duration.ofSeconds(1).toNanos(), limiter.tryAcquire("alice"));
+        assertEquals(0, limiter.tryAcquire("bob"));
+
+        clock.addAndGet(HALF_PERMIT.toNanos());
+        assertEquals(HALF_PERMIT.toNanos(), limiter.tryAcquire("alice"));
+        clock.addAndGet(HALF_PERMIT.toNanos());
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+    }
+
+    /**
+     * Tests that the least recently used keys are dropped beyond the maximum number of keys.
+     */
+    @Test
+    void testTrackedKeysAreBounded() {
+        var limiter = new StripedRateLimiter(1, Duration.ofMinutes(1), TEST_MAX_KEYS, TEST_STRIPES, clock::get);
+
+        for (int i = 0; i < TEST_KEYS; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+
+        assertTrue(limiter.size() <= TEST_MAX_KEYS);
+        assertEquals(0, limiter.tryAcquire("user0"));
+    }
+}
@@ -0,0 +1,69 @@
+package unit.sc.snicky.springbootjwtauth.api.v1.services.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sc.snicky.springbootjwtauth.api.v1.domain.types.ProtectedToken;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenHasher;
+import sc.snicky.springbootjwtauth.api.v1.services.utils.TokenUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for {@link TokenHasher}.
+ * Tests that the reused per-thread digests produce plain SHA-256 hashes.
+ */
+@Tag("unit")
+public class TokenHasherTest {
+    private static final int TEST_REPEATS = 3;
+    private static final int TEST_LONG_TOKEN_LENGTH = 1000;
+
+    /**
+     * Tests that repeated hashing on one thread matches a fresh SHA-256 digest of the token.
+     */
+    @Test
+    void testHashMatchesSha256() throws NoSuchAlgorithmException {
+        for (int i = 0; i < TEST_REPEATS; i++) {
+            var token = TokenUtils.generateToken();
+
+            var hash = TokenHasher.hash(token);
+
+            Assertions.assertEquals(sha256(token), hash.getToken());
+            Assertions.assertEquals(new ProtectedToken(sha256(token)), hash);
+        }
+    }
+
+    /**
+     * Tests hashing of non-ASCII and long tokens, which bypass the reusable input buffer.
+     */
+    @Test
+    void testHashNonAsciiAndLongTokens() throws NoSuchAlgorithmException {
+        var nonAscii = "token-ü-€";
+        var longToken = "x".repeat(TEST_LONG_TOKEN_LENGTH);
+
+        Assertions.assertEquals(sha256(nonAscii), TokenHasher.hash(nonAscii).getToken());
+        Assertions.assertEquals(sha256(longToken), TokenHasher.hash(longToken).getToken());
+    }
+
+    /**
+     * Tests hashing on a virtual thread, which uses a cloned digest instead of a thread-local one.
+     */
+    @Test
+    void testHashOnVirtualThread() throws Exception {
+        var token = TokenUtils.generateToken();
+        var result = new AtomicReference<ProtectedToken>();
+
+        Thread.ofVirtual().start(() -> result.set(TokenHasher.hash(token))).join();
+
+        Assertions.assertEquals(sha256(token), result.get().getToken());
+    }
+
+    private static String sha256(String token) throws NoSuchAlgorithmException {
+        var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}